@@ -0,0 +1,225 @@
+/*
+ * Parallel batch mode for assignment 2 of RMIT Algorithms & Analysis, 2020
+ * semester 1.
+ *
+ * @author Jeffrey Chan & Minyi Li, RMIT 2020
+ */
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+import grid.*;
+import solver.*;
+
+
+/**
+ * Batch mode that solves independent puzzles on several cores.  Puzzles are
+ * read on the calling thread and solved on a work-stealing ForkJoinPool.
+ * Solvers keep per-solve state in their fields, so every worker thread gets
+ * its own solver instance.  At most maxInFlight puzzles are read but not yet
+ * finished (or, for ordered output, not yet written) at any time.
+ */
+public class ParallelSudokuBatch extends SudokuBatch
+{
+    /**
+     * Number of worker threads.
+     */
+    private int numThreads;
+
+    /**
+     * Bound on puzzles read but not yet finished.
+     */
+    private int maxInFlight;
+
+    /**
+     * Whether grids are written in input order, or as soon as they are solved.
+     */
+    private boolean bOrdered;
+
+    /**
+     * Thread-confined solvers, one per worker.
+     */
+    private ThreadLocal<SudokuSolver> solvers;
+
+    // output state, guarded by the lock on pending
+    private GridWriter gridWriter;
+    private Map<Long, SudokuGrid> pending = new HashMap<>();
+    private long nextToWrite = 0;
+    private boolean bWrittenAny = false;
+
+    // first failure in a worker (errors included, e.g. a stack overflow in a
+    // recursive solver), rethrown on the calling thread
+    private volatile Throwable failure = null;
+
+
+    public ParallelSudokuBatch(String gameType, String solverType, int numThreads,
+        int maxInFlight, boolean bOrdered)
+    {
+        super(gameType, solverType);
+        this.numThreads = numThreads;
+        this.maxInFlight = maxInFlight;
+        this.bOrdered = bOrdered;
+
+        this.solvers = ThreadLocal.withInitial(() -> {
+            RmitSudoku.SolverGridPair pair = new RmitSudoku.SolverGridPair();
+            RmitSudoku.initSolver(gameType, solverType, pair);
+            pair.solver.setQuiet(true);
+            return pair.solver;
+        });
+    } // end of ParallelSudokuBatch()
+
+
+    @Override
+    public void run(String source, String outFilename)
+        throws FileNotFoundException, IOException
+    {
+        String[] filenames = listSources(source);
+
+        Writer writer = null;
+        if (outFilename != null) {
+            writer = new FileWriter(outFilename);
+            gridWriter = new GridWriter(writer);
+        }
+
+        ForkJoinPool pool = new ForkJoinPool(numThreads);
+        Semaphore inFlight = new Semaphore(maxInFlight);
+        long seq = 0;
+
+        // check the game and solver types once on this thread, the workers
+        // build their own solvers
+        RmitSudoku.initSolver(gameType, solverType, new RmitSudoku.SolverGridPair());
+
+        long startTime = System.nanoTime();
+
+        try {
+            for (String filename : filenames) {
+                ByteBuffer buffer = mapSource(filename);
+                if (buffer == null) {
+                    continue;
+                }
+
+                while (failure == null && new PuzzleReader(buffer).skipBlankLines()) {
+                    inFlight.acquireUninterruptibly();
+
+                    // each puzzle gets its own grid, handed over to a worker
+                    long readStart = System.nanoTime();
+                    SudokuGrid grid = RmitSudoku.initGrid(gameType);
+                    boolean bRead = readPuzzle(filename, buffer, grid);
+                    long readNanos = System.nanoTime() - readStart;
+
+                    // a malformed puzzle ends this file
+                    if (!bRead) {
+                        inFlight.release();
+                        break;
+                    }
+
+                    long puzzleSeq = seq++;
+                    pool.execute(() -> solveOne(grid, puzzleSeq, readNanos, inFlight));
+                }
+            }
+
+            // wait for every puzzle to be finished
+            inFlight.acquireUninterruptibly(maxInFlight);
+        }
+        finally {
+            pool.shutdown();
+            try {
+                pool.awaitTermination(Long.MAX_VALUE, TimeUnit.NANOSECONDS);
+            }
+            catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+
+            if (writer != null) {
+                gridWriter.flush();
+                writer.close();
+            }
+        }
+
+        long endTime = System.nanoTime();
+
+        if (failure instanceof IOException) {
+            throw (IOException) failure;
+        }
+        if (failure instanceof Error) {
+            throw (Error) failure;
+        }
+        if (failure != null) {
+            throw new RuntimeException(failure);
+        }
+
+        printSummary(endTime - startTime);
+    } // end of run()
+
+
+    /**
+     * Solve one puzzle on a worker thread and pass it on for output.
+     */
+    private void solveOne(SudokuGrid grid, long puzzleSeq, long readNanos, Semaphore inFlight) {
+        boolean bDone = false;
+
+        try {
+            long startTime = System.nanoTime();
+            boolean bSolvedSuccess = solvers.get().solve(grid);
+            long endTime = System.nanoTime();
+
+            recordResult(readNanos + endTime - startTime, bSolvedSuccess, isSolved(grid));
+            bDone = true;
+        }
+        catch (Throwable e) {
+            failure = e;
+        }
+        finally {
+            // a failed puzzle still takes its turn, but writes nothing
+            finished(puzzleSeq, bDone ? grid : null, inFlight);
+        }
+    } // end of solveOne()
+
+
+    /**
+     * Write out a finished puzzle.  Ordered output holds it back until every
+     * earlier puzzle is written.  Releases the in-flight permit of each puzzle
+     * once it is written.
+     */
+    private void finished(long puzzleSeq, SudokuGrid grid, Semaphore inFlight) {
+        synchronized (pending) {
+            if (!bOrdered) {
+                write(grid);
+                inFlight.release();
+                return;
+            }
+
+            pending.put(puzzleSeq, grid);
+            while (pending.containsKey(nextToWrite)) {
+                write(pending.remove(nextToWrite));
+                nextToWrite++;
+                inFlight.release();
+            }
+        }
+    } // end of finished()
+
+
+    /**
+     * Write a grid, unless there is no output file, the puzzle failed or an
+     * earlier write failed.
+     */
+    private void write(SudokuGrid grid) {
+        if (gridWriter == null || grid == null || failure != null) {
+            return;
+        }
+
+        try {
+            writeResult(gridWriter, grid, !bWrittenAny);
+            bWrittenAny = true;
+        }
+        catch (IOException e) {
+            failure = e;
+        }
+    } // end of write()
+
+} // end of class ParallelSudokuBatch
@@ -9,6 +9,7 @@
  */
 
 import java.io.*;
+import java.util.concurrent.ForkJoinPool;
 
 import grid.*;
 import solver.*;
@@ -29,12 +30,40 @@ public class RmitSudoku
      */
     protected static final String progName = "RmitSudoku";
 
+    /**
+     * Solver type prefix that adds the singles propagation stage.
+     */
+    protected static final String propagatePrefix = "singles+";
+
+    /**
+     * First argument that switches to batch mode.
+     */
+    protected static final String batchFlag = "--batch";
+
+    /**
+     * First argument that switches to parallel batch mode.
+     */
+    protected static final String parallelBatchFlag = "--parallel-batch";
+
+    /**
+     * Branching levels of the search that the paralleldancing solver splits
+     * into separate tasks.
+     */
+    protected static final int parallelSplitLevels = 4;
+
 
     /**
      *
      * @param args the command line arguments
      */
     public static void main(String[] args) {
+        // batch mode solves many puzzles in this one process
+        if (args.length > 0
+            && (args[0].equals(batchFlag) || args[0].equals(parallelBatchFlag))) {
+            runBatch(args);
+            return;
+        }
+
         // read command line arguments
 	    if (args.length < 4) {
 	        System.err.println("Incorrect number of arguments.\n");
@@ -71,17 +100,7 @@ public class RmitSudoku
 
         // which type of game?
         // construct corresponding grid and solver
-        switch (gameType) {
-            case "sudoku":
-                initSudokuSolver(solverType, pair);
-                break;
-            case "killer":
-                initKillerSolver(solverType, pair);
-                break;
-            default:
-                System.err.println("Unknown game type specified.\n");
-                usage(progName);
-        }
+        initSolver(gameType, solverType, pair);
 
         // retrieve constructed grid and pair
         grid = pair.grid;
@@ -154,6 +173,56 @@ public class RmitSudoku
 
     /* ************************************************* */
 
+    /**
+     * Run batch mode: [--batch | --parallel-batch] [puzzle directory | corpus
+     * file] [game type] [solver type] <output filename> <ordered | unordered>.
+     * The last argument is only used by --parallel-batch, and defaults to
+     * ordered.
+     *
+     * @param args the command line arguments
+     */
+    private static void runBatch(String[] args) {
+        if (args.length < 4) {
+            System.err.println("Incorrect number of arguments.\n");
+            usage(progName);
+        }
+
+        // optional argument.  If specified, then solved grids are streamed to
+        // this file.
+        String solvedGridOutFilename = null;
+        if (args.length > 4) {
+            solvedGridOutFilename = args[4];
+        }
+
+        SudokuBatch batch = null;
+        if (args[0].equals(parallelBatchFlag)) {
+            // whether to write grids in input order
+            boolean bOrdered = true;
+            if (args.length > 5) {
+                bOrdered = args[5].compareTo("unordered") != 0;
+            }
+
+            // one worker per core, with a few puzzles queued for each
+            int numThreads = Runtime.getRuntime().availableProcessors();
+            batch = new ParallelSudokuBatch(args[2], args[3], numThreads,
+                numThreads * 4, bOrdered);
+        }
+        else {
+            batch = new SudokuBatch(args[2], args[3]);
+        }
+
+        try {
+            batch.run(args[1], solvedGridOutFilename);
+        }
+        catch (FileNotFoundException e) {
+            System.err.println("File not found. " + e.getMessage());
+        }
+        catch (IOException e) {
+            System.err.println("IOExeption occurred. " + e.getMessage());
+        }
+    } // end of runBatch()
+
+
     /**
      * Print help/usage message.
      *
@@ -163,14 +232,63 @@ public class RmitSudoku
 
         System.err.println(progName + ": [grid fileName] [game type] [solver type] [visualisation] <output filename>");
         System.err.println("[game type] = {sudoku | killer}");
-        System.err.println("[solver type] (for Sudoku) = {backtracking | algorx | dancing}");
-        System.err.println("[solver type] (for Killer Sudoku) = {backtracking | advanced}");
+        System.err.println("[solver type] (for Sudoku) = {backtracking | bitmask | mrv | iterative | algorx | bucketalgorx | bitsetalgorx | dancing | arraydancing | paralleldancing}");
+        System.err.println("    prefix with " + propagatePrefix + " to fill naked/hidden singles first");
+        System.err.println("[solver type] (for Killer Sudoku) = {backtracking | advanced | dancing}");
         System.err.println("<visualisation> = <y | n>");
+        System.err.println(progName + " " + batchFlag + " [puzzle directory | corpus file] [game type] [solver type] <output filename>");
+        System.err.println("    solves every puzzle (corpus puzzles separated by empty lines) in one process");
+        System.err.println(progName + " " + parallelBatchFlag + " [puzzle directory | corpus file] [game type] [solver type] <output filename> <ordered | unordered>");
+        System.err.println("    as above, spread over all cores");
 
 	    System.exit(1);
     } // end of usage()
 
 
+    /**
+     * Contruct appropriate grid and solver for the game type.
+     *
+     * @param gameType Type of game, sudoku or killer.
+     * @param solverType Type of solver we want to use and construct.
+     * @param pair Used to return the constructed grid and solver (return by
+     *               reference).
+     */
+    static void initSolver(String gameType, String solverType, SolverGridPair pair) {
+        switch (gameType) {
+            case "sudoku":
+                initSudokuSolver(solverType, pair);
+                break;
+            case "killer":
+                initKillerSolver(solverType, pair);
+                break;
+            default:
+                System.err.println("Unknown game type specified.\n");
+                usage(progName);
+        }
+    } // end of initSolver()
+
+
+    /**
+     * Contruct an empty grid for the game type, without a solver.
+     *
+     * @param gameType Type of game, sudoku or killer.
+     *
+     * @return The constructed grid.
+     */
+    static SudokuGrid initGrid(String gameType) {
+        switch (gameType) {
+            case "sudoku":
+                return new StdSudokuGrid();
+            case "killer":
+                return new KillerSudokuGrid();
+            default:
+                System.err.println("Unknown game type specified.\n");
+                usage(progName);
+                return null;
+        }
+    } // end of initGrid()
+
+
     /**
      * Contruct appropriate grid and solver for (standard) Sudoku.
      *
@@ -182,6 +300,14 @@ public class RmitSudoku
         SudokuGrid grid = null;
         SudokuSolver solver = null;
 
+        // a "singles+" prefix runs the singles propagation stage before the
+        // chosen solver
+        boolean bPropagate = false;
+        if (solverType.startsWith(propagatePrefix)) {
+            bPropagate = true;
+            solverType = solverType.substring(propagatePrefix.length());
+        }
+
         // check with solver (and grid) to construct
         // currently all grids are the same for all solvers, but there are
         // possibility this might not be in the future iterations.
@@ -190,19 +316,57 @@ public class RmitSudoku
                 grid = new StdSudokuGrid();
                 solver = new BackTrackingSolver();
                 break;
+            case "bitmask":
+                grid = new StdSudokuGrid();
+                solver = new BitmaskBackTrackingSolver();
+                break;
+            case "mrv":
+                grid = new StdSudokuGrid();
+                solver = new MrvBackTrackingSolver();
+                break;
+            case "iterative":
+                grid = new StdSudokuGrid();
+                solver = new IterativeBackTrackingSolver();
+                break;
             case "algorx":
                 grid = new StdSudokuGrid();
                 solver = new AlgorXSolver();
                 break;
+            case "bucketalgorx":
+                grid = new StdSudokuGrid();
+                solver = new AlgorXSolver(true);
+                break;
+            case "bitsetalgorx":
+                grid = new StdSudokuGrid();
+                solver = new BitsetAlgorXSolver();
+                break;
             case "dancing":
                 grid = new StdSudokuGrid();
                 solver = new DancingLinksSolver();
                 break;
+            case "arraydancing":
+                grid = new StdSudokuGrid();
+                solver = new ArrayDancingLinksSolver();
+                break;
+            case "paralleldancing":
+                grid = new StdSudokuGrid();
+                solver = new ArrayDancingLinksSolver(1, ForkJoinPool.commonPool(), parallelSplitLevels);
+                break;
             default:
                 System.err.println("Unknown solver type specified.\n");
                 usage(progName);
         }
 
+        if (bPropagate) {
+            // solvers that count solutions keep counting behind propagation
+            if (solver instanceof SolutionCounter) {
+                solver = new CountingPropagatingSolver((SudokuSolver & SolutionCounter) solver);
+            }
+            else {
+                solver = new PropagatingSolver(solver);
+            }
+        }
+
         pair.grid = grid;
         pair.solver = solver;
     } // end of initSudokuSolver()
@@ -231,6 +395,10 @@ public class RmitSudoku
                 grid = new KillerSudokuGrid();
                 solver = new KillerAdvancedSolver();
                 break;
+            case "dancing":
+                grid = new KillerSudokuGrid();
+                solver = new KillerDancingLinksSolver();
+                break;
             default:
                 System.err.println("Unknown solver type specified.\n");
                 usage(progName);
@@ -0,0 +1,303 @@
+/*
+ * Batch mode for assignment 2 of RMIT Algorithms & Analysis, 2020 semester 1.
+ *
+ * @author Jeffrey Chan & Minyi Li, RMIT 2020
+ */
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+import grid.*;
+import solver.*;
+
+
+/**
+ * Solves every puzzle in a directory or a multi-puzzle corpus file in one
+ * process, so the JVM is started and warmed up once.  Solved grids are
+ * streamed to an output file as they are found, and throughput and latency
+ * percentiles are printed at the end.
+ */
+public class SudokuBatch
+{
+    /**
+     * Type of game, passed to RmitSudoku.initSolver().
+     */
+    protected String gameType;
+
+    /**
+     * Type of solver, passed to RmitSudoku.initSolver().
+     */
+    protected String solverType;
+
+    /**
+     * Time taken for each puzzle so far, in nanoseconds.
+     */
+    private long[] latencies = new long[1024];
+    private int numPuzzles = 0;
+    private int numSolved = 0;
+    private int numValid = 0;
+    private int numFailed = 0;
+
+
+    public SudokuBatch(String gameType, String solverType) {
+        this.gameType = gameType;
+        this.solverType = solverType;
+    } // end of SudokuBatch()
+
+
+    /**
+     * Solve all puzzles and print the summary.
+     *
+     * @param source Directory of puzzle files, or a corpus file holding
+     *                 puzzles separated by empty lines.
+     * @param outFilename File to stream solved grids to (separated by empty
+     *                 lines), or null to not write them.
+     *
+     * @throws FileNotFoundException If source is not found.
+     * @throws IOException If reading or writing fails.
+     */
+    public void run(String source, String outFilename)
+        throws FileNotFoundException, IOException
+    {
+        String[] filenames = listSources(source);
+
+        Writer writer = null;
+        GridWriter gridWriter = null;
+        if (outFilename != null) {
+            writer = new FileWriter(outFilename);
+            gridWriter = new GridWriter(writer);
+        }
+
+        // one grid and solver, reused for every puzzle
+        RmitSudoku.SolverGridPair pair = new RmitSudoku.SolverGridPair();
+        RmitSudoku.initSolver(gameType, solverType, pair);
+
+        // per-puzzle messages would be timed with the solving and bury the
+        // summary
+        pair.solver.setQuiet(true);
+
+        long startTime = System.nanoTime();
+
+        try {
+            for (String filename : filenames) {
+                ByteBuffer buffer = mapSource(filename);
+                if (buffer == null) {
+                    continue;
+                }
+
+                // each pass reads one puzzle and leaves buffer on the next
+                while (new PuzzleReader(buffer).skipBlankLines()) {
+                    if (!solveOne(filename, buffer, pair.grid, pair.solver, gridWriter)) {
+                        break;
+                    }
+                }
+            }
+        }
+        finally {
+            if (writer != null) {
+                gridWriter.flush();
+                writer.close();
+            }
+        }
+
+        long endTime = System.nanoTime();
+
+        printSummary(endTime - startTime);
+    } // end of run()
+
+
+    /**
+     * Read, solve and (optionally) write out the next puzzle in buffer.
+     *
+     * @return False if the puzzle couldn't be read (see readPuzzle()).
+     */
+    private boolean solveOne(String filename, ByteBuffer buffer, SudokuGrid grid,
+        SudokuSolver solver, GridWriter gridWriter) throws IOException
+    {
+        long startTime = System.nanoTime();
+
+        if (!readPuzzle(filename, buffer, grid)) {
+            return false;
+        }
+
+        boolean bSolvedSuccess = solver.solve(grid);
+
+        long endTime = System.nanoTime();
+
+        recordResult(endTime - startTime, bSolvedSuccess, isSolved(grid));
+
+        if (gridWriter != null) {
+            writeResult(gridWriter, grid, numPuzzles == 1);
+        }
+
+        return true;
+    } // end of solveOne()
+
+
+    /**
+     * Map a source file for reading.
+     *
+     * @return The file's contents, or null, after recording the failure, if
+     *         it can't be read.
+     */
+    protected ByteBuffer mapSource(String filename) {
+        try {
+            return PuzzleReader.mapFile(filename);
+        }
+        catch (IOException e) {
+            recordFailure(filename, e.getMessage());
+            return null;
+        }
+    } // end of mapSource()
+
+
+    /**
+     * Read the next puzzle of filename from buffer into grid.
+     *
+     * @return False, after recording the failure, if the puzzle is malformed.
+     *         The reader can't tell where the next puzzle starts after that,
+     *         so the caller skips the rest of the file.
+     */
+    protected boolean readPuzzle(String filename, ByteBuffer buffer, SudokuGrid grid) {
+        try {
+            grid.initGrid(buffer);
+        }
+        catch (IOException | RuntimeException e) {
+            recordFailure(filename, e.getMessage());
+            return false;
+        }
+
+        if (grid.getCells() == null) {
+            recordFailure(filename, "invalid puzzle size");
+            return false;
+        }
+
+        return true;
+    } // end of readPuzzle()
+
+
+    /**
+     * @return True if every cell of grid is filled and it validates
+     *         (validate() on its own accepts empty cells).
+     */
+    protected static boolean isSolved(SudokuGrid grid) {
+        for (short value : grid.getCells()) {
+            if (value == -1) {
+                return false;
+            }
+        }
+
+        return grid.validate();
+    } // end of isSolved()
+
+
+    /**
+     * Files to read: source itself, or every file in it (in name order) if it
+     * is a directory.
+     */
+    protected static String[] listSources(String source) {
+        File sourceFile = new File(source);
+        if (!sourceFile.isDirectory()) {
+            return new String[] { source };
+        }
+
+        File[] files = sourceFile.listFiles(File::isFile);
+        Arrays.sort(files);
+        String[] filenames = new String[files.length];
+        for (int i = 0; i < files.length; i++) {
+            filenames[i] = files[i].getPath();
+        }
+        return filenames;
+    } // end of listSources()
+
+
+    /**
+     * Write a solved grid, with an empty line before it unless it is the
+     * first one (matching the corpus format).
+     */
+    protected static void writeResult(GridWriter gridWriter, SudokuGrid grid, boolean bFirst)
+        throws IOException
+    {
+        if (!bFirst) {
+            gridWriter.newLine();
+            gridWriter.newLine();
+        }
+        gridWriter.write(grid);
+    } // end of writeResult()
+
+
+    /**
+     * Record the outcome of one puzzle.  Safe to call from several threads.
+     *
+     * @param nanos Time taken for the puzzle.
+     * @param bSolved Whether the solver reported success.
+     * @param bValid Whether the solved grid validated.
+     */
+    protected synchronized void recordResult(long nanos, boolean bSolved, boolean bValid) {
+        if (numPuzzles == latencies.length) {
+            latencies = Arrays.copyOf(latencies, numPuzzles * 2);
+        }
+        latencies[numPuzzles++] = nanos;
+
+        if (bSolved) {
+            numSolved++;
+        }
+        if (bValid) {
+            numValid++;
+        }
+    } // end of recordResult()
+
+
+    /**
+     * Record a source that couldn't be read (fully).  Safe to call from
+     * several threads.
+     *
+     * @param filename File the failure is in.
+     * @param message What went wrong.
+     */
+    protected synchronized void recordFailure(String filename, String message) {
+        numFailed++;
+        System.err.println("Failed to read " + filename + ": " + message
+            + " (rest of file skipped)");
+    } // end of recordFailure()
+
+
+    /**
+     * Print counts, throughput and latency percentiles.
+     *
+     * @param totalNanos Wall time of the whole batch.
+     */
+    protected synchronized void printSummary(long totalNanos) {
+        double totalSeconds = ((double) totalNanos) / Math.pow(10, 9);
+
+        System.out.println("puzzles = " + numPuzzles + ", solved = " + numSolved
+            + ", valid = " + numValid + ", failed to read = " + numFailed);
+        System.out.println("time taken = " + totalSeconds + " sec.");
+
+        if (numPuzzles == 0) {
+            return;
+        }
+
+        System.out.println("throughput = " + (numPuzzles / totalSeconds) + " puzzles/sec.");
+
+        long[] sorted = Arrays.copyOf(latencies, numPuzzles);
+        Arrays.sort(sorted);
+        System.out.println("latency p50 = " + percentileMillis(sorted, 50)
+            + " ms, p90 = " + percentileMillis(sorted, 90)
+            + " ms, p99 = " + percentileMillis(sorted, 99)
+            + " ms, max = " + percentileMillis(sorted, 100) + " ms.");
+    } // end of printSummary()
+
+
+    /**
+     * @return Nearest-rank percentile of the sorted latencies, in
+     *         milliseconds.
+     */
+    private static double percentileMillis(long[] sorted, int percentile) {
+        int rank = (int) Math.ceil(percentile / 100.0 * sorted.length);
+        int index = Math.max(rank - 1, 0);
+        return ((double) sorted[index]) / Math.pow(10, 6);
+    } // end of percentileMillis()
+
+} // end of class SudokuBatch
@@ -0,0 +1,106 @@
+/**
+ * @author Jeffrey Chan & Minyi Li, RMIT 2020
+ */
+package grid;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Streams grids to a Writer in the output file format (comma separated cells,
+ * one row per line).  Digits are formatted into a reusable char buffer, so no
+ * Strings are built, and one GridWriter can dump any number of grids.
+ */
+public class GridWriter {
+
+	private static final int BUFFER_SIZE = 8192;
+
+	private Writer out;
+	private char[] buffer;
+	private int pos;
+
+	public GridWriter(Writer out) {
+		this.out = out;
+		this.buffer = new char[BUFFER_SIZE];
+		this.pos = 0;
+	} // end of GridWriter()
+
+	public GridWriter(OutputStream out) {
+		this(new OutputStreamWriter(out, StandardCharsets.US_ASCII));
+	} // end of GridWriter()
+
+	/**
+	 * Writes the current values of grid, without a newline after the last row.
+	 * Does nothing if the grid hasn't been read in.
+	 */
+	public void write(SudokuGrid grid) throws IOException {
+		short[] cells = grid.currentCells();
+		if (cells == null) {
+			return;
+		}
+
+		int puzzleSize = grid.getPuzzleSize();
+		for (int i = 0; i < puzzleSize; i++) {
+			for (int j = 0; j < puzzleSize; j++) {
+
+				// room for a sign, five digits and a separator
+				if (pos + 7 > buffer.length) {
+					flushBuffer();
+				}
+
+				if (j != 0) {
+					buffer[pos++] = ',';
+				}
+				writeValue(cells[i * puzzleSize + j]);
+			}
+
+			// no empty line at the end of the grid (newLine() makes room
+			// for it, the row may have filled the buffer)
+			if (i != puzzleSize - 1) {
+				newLine();
+			}
+		}
+	}
+
+	public void newLine() throws IOException {
+		if (pos == buffer.length) {
+			flushBuffer();
+		}
+		buffer[pos++] = '\n';
+	}
+
+	/**
+	 * Pushes everything buffered so far through to the underlying Writer and
+	 * flushes it.
+	 */
+	public void flush() throws IOException {
+		flushBuffer();
+		out.flush();
+	}
+
+	private void flushBuffer() throws IOException {
+		out.write(buffer, 0, pos);
+		pos = 0;
+	}
+
+	private void writeValue(int value) {
+		if (value < 0) {
+			buffer[pos++] = '-';
+			value = -value;
+		}
+
+		// write the digits backwards, then reverse them in place
+		int start = pos;
+		do {
+			buffer[pos++] = (char) ('0' + value % 10);
+			value /= 10;
+		} while (value != 0);
+
+		for (int lo = start, hi = pos - 1; lo < hi; lo++, hi--) {
+			char tmp = buffer[lo];
+			buffer[lo] = buffer[hi];
+			buffer[hi] = tmp;
+		}
+	}
+
+} // end of class GridWriter
@@ -2,21 +2,29 @@ package grid;
 
 public class KillerCell{
 	
-	private int row, column, value;
+	private int row, column;
+	// value lives in a shared cell array so the cell can sit on top of a grid
+	private short[] values;
+	private int index;
 	private KillerCage cage;
 	
 	public KillerCell(int row, int column){
-		this.value = -1;
+		this(row, column, new short[] {-1}, 0);
+	}
+	
+	public KillerCell(int row, int column, short[] values, int index){
 		this.row = row;
 		this.column = column;
+		this.values = values;
+		this.index = index;
 	}
 	
 	public void setValue(int value) {
-		this.value = value;
+		this.values[index] = (short) value;
 	}
 	
 	public int getValue() {
-		return this.value;
+		return this.values[index];
 	}
 	
 	public int getRow() {
@@ -34,4 +42,4 @@ public class KillerCell{
 	public void setCage(KillerCage cage) {
 		this.cage = cage;
 	}
-}
+}
\ No newline at end of file
@@ -4,8 +4,9 @@
 package grid;
 
 import java.io.*;
+import java.nio.ByteBuffer;
 import java.util.ArrayList;
-import java.util.HashSet;
+import java.util.Arrays;
 import java.util.List;
 
 /**
@@ -18,11 +19,25 @@ import java.util.List;
  */
 public class KillerSudokuGrid extends SudokuGrid {
 
-	private KillerCell[][] grid;
+	// cell values stored row-major (row * puzzleSize + col), -1 if empty
+	private short[] cells;
 	private int puzzleSize;
 	private int[] symbols;
-	private List<KillerCage> cages;
 	private int numOfCages;
+	// duplicate checks for rows, columns and squares
+	private UnitChecker checker;
+
+	// cage index of each cell (row-major), -1 if the cell is in no cage
+	private int[] cageIds;
+	private int[] cageTargets;
+	private int[] cageSizes;
+	// cells of each cage, cage c owns cageCells[cageStart[c] .. cageStart[c + 1])
+	private int[] cageStart;
+	private int[] cageCells;
+
+	// KillerCell/KillerCage objects for older callers, built on first request
+	private KillerCell[][] grid;
+	private List<KillerCage> cages;
 
 	public KillerSudokuGrid() {
 		super();
@@ -35,258 +50,213 @@ public class KillerSudokuGrid extends SudokuGrid {
 	@Override
 	public void initGrid(String filename) throws FileNotFoundException, IOException {
 
-		// initialize cage array to store all cages in the puzzle
-		cages = new ArrayList<KillerCage>();
+		// Loads file in (mapped, so it is parsed straight from bytes)
+		initGrid(PuzzleReader.mapFile(filename));
 		
-		// Loads file in
-		File toLoad = new File("SampleGames/" + filename);
-		BufferedReader br = new BufferedReader(new FileReader(toLoad));
+		if(cells != null) {
+			System.out.println("(" + filename + ") >> Read Successfully!");
+		}
+
+	} // end of initBoard()
+
+	@Override
+	public void initGrid(ByteBuffer source) throws IOException {
+		PuzzleReader reader = new PuzzleReader(source);
+
+		// drop any previously loaded grid
+		this.cells = null;
+		this.grid = null;
+		this.cages = null;
 
 		// puzzle size
-		this.puzzleSize = Integer.parseInt(br.readLine());
+		reader.skipBlankLines();
+		this.puzzleSize = reader.nextInt();
+		reader.nextLine();
 
 		double root = Math.sqrt(puzzleSize);
 
 		// checks if size is a valid size
 		if (root == (int) root) {
-			// initializes symbols string array to load in from file
-			String[] loadedSymbols = br.readLine().split(" ");
-
 			// initializes symbols integer array for grid
 			this.symbols = new int[puzzleSize];
 
-			// copies string array into int array
+			// reads the symbols in from the second line
 			for (int i = 0; i < puzzleSize; i++) {
 
-				this.symbols[i] = Integer.parseInt(loadedSymbols[i]);
+				this.symbols[i] = reader.nextInt();
 
 			}
+			reader.nextLine();
 
-			// initializes grid to have size as specified in file
-			this.grid = new KillerCell[puzzleSize][puzzleSize];
+			this.checker = new UnitChecker(puzzleSize, symbols);
 
-			// adds cells into the sudoku grid with default value of -1
-			for (int i = 0; i < puzzleSize; i++) {
-				for (int j = 0; j < puzzleSize; j++) {
-					grid[i][j] = new KillerCell(i, j);
-				}
-			}
+			// initializes grid to have size as specified in file, all cells
+			// start with default value of -1
+			int numCells = puzzleSize * puzzleSize;
+			short[] cells = new short[numCells];
+			Arrays.fill(cells, (short) -1);
 			
 			// gets number of cages from file
-			this.numOfCages = Integer.parseInt(br.readLine());
+			this.numOfCages = reader.nextInt();
+			reader.nextLine();
 			
+			// cage arrays, grown below if the file has more cages than it says
+			this.cageIds = new int[numCells];
+			Arrays.fill(cageIds, -1);
+			this.cageTargets = new int[numOfCages];
+			this.cageSizes = new int[numOfCages];
+			int cageCount = 0;
 			
-			// read in each line until end of file
-			String line;
-			while((line = br.readLine()) != null) {
-				
-				// split to get cage values
-				String[] split = line.split(" ");
-				
-				
-				// get target value from first split
-				int target = Integer.parseInt(split[0]);
+			// read in each "target row,column row,column ..." line until the
+			// end of the puzzle
+			while(!reader.atEndOfPuzzle()) {
 				
+				if(cageCount == cageTargets.length) {
+					cageTargets = Arrays.copyOf(cageTargets, cageCount * 2 + 1);
+					cageSizes = Arrays.copyOf(cageSizes, cageCount * 2 + 1);
+				}
 				
-				// initialize cage object to store rows
-				KillerCage cage = new KillerCage(target);
+				// target value comes first
+				cageTargets[cageCount] = reader.nextInt();
 				
 				// repeat until no more cells for the cage
-				for(int i = 1; i < split.length; i++) {
-					
-					// split to get row and column
-					String[] split2 = split[i].split(",");
-					int row = Integer.parseInt(split2[0]);
-					int column = Integer.parseInt(split2[1]);
+				while(reader.hasIntOnLine()) {
+					int row = reader.nextInt();
+					int column = reader.nextInt();
 					
-					// add specific cell from the grid into the cage
-					cage.addCell(grid[row][column]);
-					grid[row][column].setCage(cage);
+					// mark the cell as belonging to this cage
+					cageIds[row * puzzleSize + column] = cageCount;
+					cageSizes[cageCount]++;
 				}
+				reader.nextLine();
 				
-				// add cage just made into the list of cages for the puzzle
-				cages.add(cage);
-				
+				cageCount++;
 			}
 			
-			System.out.println("(" + filename + ") >> Read Successfully!");
+			this.numOfCages = cageCount;
+			this.cageTargets = Arrays.copyOf(cageTargets, cageCount);
+			this.cageSizes = Arrays.copyOf(cageSizes, cageCount);
+			groupCageCells();
+			this.cells = cells;
 			
 		} else {
 
+			// skip the rest of this puzzle
+			while(!reader.atEndOfPuzzle()) {
+				reader.nextLine();
+			}
+
 			// Error message for if the puzzle size is invalid
 			System.out.println("Error: File not read in because the size was invalid");
 
 		}
 
-	} // end of initBoard()
+	} // end of initGrid()
 
 	@Override
 	public void outputGrid(String filename) throws FileNotFoundException, IOException {
-		// Gets file to write to
-		File toSave = new File("TestOutputs/" + filename);
-		BufferedWriter bw = new BufferedWriter(new FileWriter(toSave));
 
-		// Getting information to write to file
-		String sudokuGridOutput = toString();
-
-		// If the output isn't empty, write it to a file
-		if (sudokuGridOutput != "") {
-			bw.write(sudokuGridOutput);
-			bw.close();
-			System.out.println("(" + filename + ") >> Written Successfully!");
-
-		} else {
+		// check the puzzle was read in before creating the file
+		if(cells == null) {
 
 			// Error message for if the puzzle size is invalid
 			System.out.println("Error: Could not write to file as puzzle size is invalid");
+			return;
+		}
 
+		// Gets file to write to, closed even if writing fails
+		File toSave = new File("TestOutputs/" + filename);
+		try(Writer writer = new FileWriter(toSave)) {
+			writeGrid(writer);
 		}
+
+		System.out.println("(" + filename + ") >> Written Successfully!");
+
 	} // end of outputBoard()
 
 	@Override
 	public String toString() {
-		String sudokuGrid = "";
-		
+		StringWriter sudokuGrid = new StringWriter();
+
 		// checks to see if the puzzle was read in before attempting toString()
-		if(grid != null) {
-			
-			for(int i = 0; i < puzzleSize; i++) {
-				for(int j = 0; j < puzzleSize; j++) {
-					
-					// setting same format as given in example out files
-					if(j == puzzleSize - 1) {
-						sudokuGrid += grid[i][j].getValue();
-					}else {
-						sudokuGrid += grid[i][j].getValue() + ",";
-					}
-				}
-				
-				// prevents creating empty line at the end of the file
-				if(i != puzzleSize -1) {
-					sudokuGrid += "\n";
-				}
+		if(cells != null) {
+			try {
+				writeGrid(sudokuGrid);
+			} catch(IOException e) {
+				// StringWriter doesn't throw
 			}
-			
 		}else {
-			
+
 			// Error message for if the puzzle size is invalid
 			System.out.println("Error: Coud not create toString() because file was not read in");
-			
+
 		}
 
-		return sudokuGrid;
+		return sudokuGrid.toString();
 	} // end of toString()
 
+	@Override
+	public void writeGrid(Writer out) throws IOException {
+		GridWriter gridWriter = new GridWriter(out);
+		gridWriter.write(this);
+		gridWriter.flush();
+	} // end of writeGrid()
+
 	@Override
 	public boolean validate() {
-		boolean validated = true;
-		
-		if(grid != null) {
 
-			// check row
-			for(int i = 0; i < puzzleSize; i++) {
-				
-				// create hash set to check if any duplicates by adding to it
-				HashSet<Integer> valuesInRow = new HashSet<>();
-				
-				for(int j = 0; j < puzzleSize; j++) {
-					
-					if(grid[i][j].getValue() != -1) {
-						
-						// if false, then it is a duplicate
-						if(!valuesInRow.add(grid[i][j].getValue())) {
-							validated = false;
-						}
-					}
-				}
+		// nothing read in yet, so nothing to break
+		if(cells == null) {
+			return true;
+		}
+
+		// check every row, column and square for duplicates
+		if(!checker.checkAll(cells)) {
+			return false;
+		}
+
+		// check every cage, stopping at the first one that fails
+		for(int cage = 0; cage < numOfCages; cage++) {
+			if(!validateCage(cage)) {
+				return false;
 			}
-			
-			
-			// check column
-			for (int j = 0; validated && j < puzzleSize; j++) {
+		}
 
-				// create hash set to check if any duplicates by adding to it
-				HashSet<Integer> valuesInColumn = new HashSet<>();
+		return true;
+	} // end of validate()
 
-				for (int i = 0; validated && i < puzzleSize; i++) {
+	@Override
+	public boolean validate(int row, int col) {
 
-					if (grid[i][j].getValue() != -1) {
+		if(cells == null) {
+			return true;
+		}
 
-						// if false, then it is a duplicate
-						if (!valuesInColumn.add(grid[i][j].getValue())) {
-							validated = false;
+		// only the row, column, square and cage through the changed cell
+		int cage = cageIds[row * puzzleSize + col];
+		return checker.checkCell(cells, row, col) && (cage == -1 || validateCage(cage));
+	} // end of validate()
 
-						}
+	/**
+	 * @return False if the cage is full and its cells don't add up to its
+	 *          target, otherwise true.
+	 */
+	private boolean validateCage(int cage) {
+		int totalOfCage = 0;
 
-					}
-				}
-			}
-			
-			
-			// check squares
-			double squareSize = Math.sqrt(puzzleSize);
-			for (int row = 0; validated && row < puzzleSize; row = row + (int) squareSize) {
-				for (int col = 0; validated && col < puzzleSize; col = col + (int) squareSize) {
-
-					// create hash set to check if any duplicates by adding to it
-					HashSet<Integer> valuesInSquare = new HashSet<>();
-
-					// go through all of the square (row/col+squareSize keeps it within the current
-					// square)
-					for (int i = row; validated && i < row + squareSize; i++) {
-						for (int j = col; validated && j < col + squareSize; j++) {
-
-							if (grid[i][j].getValue() != -1) {
-								// if false, then it is a duplicate
-								if (!valuesInSquare.add(grid[i][j].getValue())) {
-									validated = false;
-
-								}
-							}
-						}
-					}
-				}
-			}
-		}
-		
-		
-		// loop through all cage
-		for(KillerCage cage : cages) {
-			
-			// get all cells in the cage
-			List<KillerCell> cells = cage.getCells();
-			boolean fullCage = true;
-			int totalOfCage = 0;
-			
-			// check if the cage is full
-			for(int i = 0; i < cells.size(); i++) {
-				int value = cells.get(i).getValue();
-				
-				// if cage has -1, set to false
-				if(value == -1) {
+		for(int i = cageStart[cage]; i < cageStart[cage + 1]; i++) {
+			int value = cells[cageCells[i]];
 
-					fullCage = false;
-					
-				// else add value to totalValue
-				}else {
-					totalOfCage += value;
-				}
-			}
-			
-			
-			// if the cage is full (has no -1 value)
-			if(fullCage) {
-				
-				// check if totalValue = totalTarget
-				if(totalOfCage != cage.getTarget()) {
-					validated = false;
-				}
+			// cage isn't full yet, so it can't fail
+			if(value == -1) {
+				return true;
 			}
+
+			totalOfCage += value;
 		}
 
-		
-		return validated;
-	} // end of validate()
+		return totalOfCage == cageTargets[cage];
+	}
 
 
 	@Override
@@ -304,14 +274,95 @@ public class KillerSudokuGrid extends SudokuGrid {
 		return null;
 	}
 
+	/**
+	 * Returns the grid as KillerCell objects.  Each cell reads and writes its
+	 * value straight through to the cell storage, so it always agrees with
+	 * getCells().
+	 */
 	@Override
 	public KillerCell[][] getKillerGrid() {
+		buildCellView();
 		return this.grid;
 	}
 
 	@Override
 	public List<KillerCage> getCages() {
+		buildCellView();
 		return this.cages;
 	}
+
+	@Override
+	public short[] getCells() {
+		return this.cells;
+	}
+
+	@Override
+	short[] currentCells() {
+		return this.cells;
+	}
+
+	@Override
+	public int[] getCageIds() {
+		return this.cageIds;
+	}
+
+	@Override
+	public int[] getCageTargets() {
+		return this.cageTargets;
+	}
+
+	@Override
+	public int[] getCageSizes() {
+		return this.cageSizes;
+	}
+
+	/**
+	 * Lists the cells of each cage next to each other in cageCells, in
+	 * row-major order, with cageStart marking where each cage begins.
+	 */
+	private void groupCageCells() {
+		cageStart = new int[numOfCages + 1];
+		for (int c = 0; c < numOfCages; c++) {
+			cageStart[c + 1] = cageStart[c] + cageSizes[c];
+		}
+
+		cageCells = new int[cageStart[numOfCages]];
+		int[] next = Arrays.copyOf(cageStart, numOfCages);
+		for (int cell = 0; cell < cageIds.length; cell++) {
+			if (cageIds[cell] != -1) {
+				cageCells[next[cageIds[cell]]++] = cell;
+			}
+		}
+	}
+
+	/**
+	 * Builds the KillerCell and KillerCage objects on top of the cell storage
+	 * the first time they are asked for.
+	 */
+	private void buildCellView() {
+		if (grid != null || cells == null) {
+			return;
+		}
+
+		grid = new KillerCell[puzzleSize][puzzleSize];
+		for (int i = 0; i < puzzleSize; i++) {
+			for (int j = 0; j < puzzleSize; j++) {
+				grid[i][j] = new KillerCell(i, j, cells, i * puzzleSize + j);
+			}
+		}
+
+		cages = new ArrayList<KillerCage>();
+		for (int c = 0; c < numOfCages; c++) {
+			KillerCage cage = new KillerCage(cageTargets[c]);
+
+			for (int i = cageStart[c]; i < cageStart[c + 1]; i++) {
+				KillerCell cell = grid[cageCells[i] / puzzleSize][cageCells[i] % puzzleSize];
+				cage.addCell(cell);
+				cell.setCage(cage);
+			}
+
+			cages.add(cage);
+		}
+	}
 } // end of class KillerSudokuGrid
 
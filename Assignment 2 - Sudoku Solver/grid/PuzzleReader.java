@@ -0,0 +1,141 @@
+/**
+ * @author Jeffrey Chan & Minyi Li, RMIT 2020
+ */
+package grid;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Reads puzzle files straight from bytes, without building a String per line.
+ * Numbers on a line may be separated by spaces, tabs or commas.  A puzzle ends
+ * at the end of the input or at an empty line, so several puzzles can be
+ * stored back to back in one source, separated by empty lines.
+ */
+public class PuzzleReader {
+
+	private ByteBuffer source;
+
+	/**
+	 * @param source Bytes to read, from its current position.  The position
+	 *                  moves forward as the puzzle is read.
+	 */
+	public PuzzleReader(ByteBuffer source) {
+		this.source = source;
+	} // end of PuzzleReader()
+
+	/**
+	 * Memory-maps a puzzle file.  If filename doesn't exist as given, it is
+	 * looked up in SampleGames/ as well.
+	 *
+	 * @throws FileNotFoundException If the file is found in neither place.
+	 */
+	public static ByteBuffer mapFile(String filename) throws FileNotFoundException, IOException {
+		File toLoad = new File(filename);
+		if (!toLoad.isFile()) {
+			toLoad = new File("SampleGames/" + filename);
+		}
+		if (!toLoad.isFile()) {
+			throw new FileNotFoundException(filename);
+		}
+
+		// the mapping stays valid after the channel is closed
+		try (FileChannel channel = FileChannel.open(toLoad.toPath(), StandardOpenOption.READ)) {
+			return channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+		}
+	}
+
+	/**
+	 * Skips over empty lines.
+	 *
+	 * @return True if there is anything left to read.
+	 */
+	public boolean skipBlankLines() {
+		while (source.hasRemaining() && atEndOfPuzzle()) {
+			nextLine();
+		}
+		return source.hasRemaining();
+	}
+
+	/**
+	 * @return True at the end of the input or at the start of an empty line.
+	 */
+	public boolean atEndOfPuzzle() {
+		for (int i = source.position(); i < source.limit(); i++) {
+			byte b = source.get(i);
+			if (b == '\n') {
+				return true;
+			}
+			if (b != ' ' && b != '\t' && b != '\r') {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Skips separators on the current line.
+	 *
+	 * @return True if another number follows on the current line.
+	 */
+	public boolean hasIntOnLine() {
+		while (source.hasRemaining()) {
+			byte b = source.get(source.position());
+			if (b == ' ' || b == '\t' || b == ',' || b == '\r') {
+				source.get();
+			} else {
+				return b == '-' || (b >= '0' && b <= '9');
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * Reads the next number on the current line.
+	 *
+	 * @throws IOException If the line has no more numbers.
+	 */
+	public int nextInt() throws IOException {
+		if (!hasIntOnLine()) {
+			throw new IOException("Expected a number at byte " + source.position());
+		}
+
+		boolean negative = false;
+		if (source.get(source.position()) == '-') {
+			negative = true;
+			source.get();
+		}
+
+		int value = 0;
+		int digits = 0;
+		while (source.hasRemaining()) {
+			byte b = source.get(source.position());
+			if (b < '0' || b > '9') {
+				break;
+			}
+			value = value * 10 + (b - '0');
+			digits++;
+			source.get();
+		}
+
+		if (digits == 0) {
+			throw new IOException("Expected a number at byte " + source.position());
+		}
+
+		return negative ? -value : value;
+	}
+
+	/**
+	 * Moves to the start of the next line, ignoring the rest of this one.
+	 */
+	public void nextLine() {
+		while (source.hasRemaining()) {
+			if (source.get() == '\n') {
+				return;
+			}
+		}
+	}
+
+} // end of class PuzzleReader
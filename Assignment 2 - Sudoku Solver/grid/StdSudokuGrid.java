@@ -4,7 +4,8 @@
 package grid;
 
 import java.io.*;
-import java.util.HashSet;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
 import java.util.List;
 
 /**
@@ -17,9 +18,12 @@ import java.util.List;
  */
 public class StdSudokuGrid extends SudokuGrid {
 
-	private int[][] grid;
+	// cell values stored row-major (row * puzzleSize + col), -1 if empty
+	private short[] cells;
 	private int puzzleSize;
 	private int[] symbols;
+	// duplicate checks for rows, columns and squares
+	private UnitChecker checker;
 
 	public StdSudokuGrid() {
 		super();
@@ -31,115 +35,109 @@ public class StdSudokuGrid extends SudokuGrid {
 	@Override
 	public void initGrid(String filename) throws FileNotFoundException, IOException {
 
-		// Loads file in
-		File toLoad = new File("SampleGames/" + filename);
-		BufferedReader br = new BufferedReader(new FileReader(toLoad));
+		// Loads file in (mapped, so it is parsed straight from bytes)
+		initGrid(PuzzleReader.mapFile(filename));
+
+		if (cells != null) {
+			System.out.println("(" + filename + ") >> Read Successfully!");
+		}
+
+	} // end of initBoard()
+
+	@Override
+	public void initGrid(ByteBuffer source) throws IOException {
+		PuzzleReader reader = new PuzzleReader(source);
+
+		// drop any previously loaded grid
+		this.cells = null;
 
 		// puzzle size
-		this.puzzleSize = Integer.parseInt(br.readLine());
+		reader.skipBlankLines();
+		this.puzzleSize = reader.nextInt();
+		reader.nextLine();
 
 		double root = Math.sqrt(puzzleSize);
 
 		// checks if size is a valid size
 		if (root == (int) root) {
-			// initializes symbols string array to load in from file
-			String[] loadedSymbols = br.readLine().split(" ");
-
 			// initializes symbols integer array for grid
 			this.symbols = new int[puzzleSize];
 
-			// copies string array into int array
+			// reads the symbols in from the second line
 			for (int i = 0; i < puzzleSize; i++) {
 
-				this.symbols[i] = Integer.parseInt(loadedSymbols[i]);
+				this.symbols[i] = reader.nextInt();
 
 			}
+			reader.nextLine();
+
+			this.checker = new UnitChecker(puzzleSize, symbols);
 
 			// initializes grid to have size as specified in file
-			this.grid = new int[puzzleSize][puzzleSize];
+			short[] cells = new short[puzzleSize * puzzleSize];
 
 			// sets all to -1 to show incomplete spaces (negative integer)
-			for (int i = 0; i < puzzleSize; i++) {
-				for (int j = 0; j < puzzleSize; j++) {
-					grid[i][j] = -1;
-				}
-			}
-
-			// read in each line in a loop to add them to the grid
-			String line;
-			while ((line = br.readLine()) != null) {
-				// splits to get row number
-				String[] split = line.split(",");
-				int row = Integer.parseInt(split[0]);
+			Arrays.fill(cells, (short) -1);
 
-				// splits to get column and value
-				String[] secondSplit = split[1].split(" ");
-				int column = Integer.parseInt(secondSplit[0]);
-				int value = Integer.parseInt(secondSplit[1]);
+			// read in each "row,column value" line to add them to the grid
+			while (!reader.atEndOfPuzzle()) {
+				int row = reader.nextInt();
+				int column = reader.nextInt();
+				int value = reader.nextInt();
+				reader.nextLine();
 
 				// add to grid array
-				grid[row][column] = value;
+				cells[row * puzzleSize + column] = (short) value;
 
 			}
 
-			System.out.println("(" + filename + ") >> Read Successfully!");
+			this.cells = cells;
 
 		} else {
 
+			// skip the rest of this puzzle
+			while (!reader.atEndOfPuzzle()) {
+				reader.nextLine();
+			}
+
 			// Error message for if the puzzle size is invalid
 			System.out.println("Error: File not read in because the size was invalid");
 
 		}
 
-	} // end of initBoard()
+	} // end of initGrid()
 
 	@Override
 	public void outputGrid(String filename) throws FileNotFoundException, IOException {
 
-		// Gets file to write to
-		File toSave = new File("TestOutputs/" + filename);
-		BufferedWriter bw = new BufferedWriter(new FileWriter(toSave));
-
-		// Getting information to write to file
-		String sudokuGridOutput = toString();
-
-		// If the output isn't empty, write it to a file
-		if (sudokuGridOutput != "") {
-			bw.write(sudokuGridOutput);
-			bw.close();
-			System.out.println("(" + filename + ") >> Written Successfully!");
-
-		} else {
+		// check the puzzle was read in before creating the file
+		if (cells == null) {
 
 			// Error message for if the puzzle size is invalid
 			System.out.println("Error: Could not write to file as puzzle size is invalid");
+			return;
+		}
 
+		// Gets file to write to, closed even if writing fails
+		File toSave = new File("TestOutputs/" + filename);
+		try (Writer writer = new FileWriter(toSave)) {
+			writeGrid(writer);
 		}
 
+		System.out.println("(" + filename + ") >> Written Successfully!");
+
 	} // end of outputBoard()
 
 	@Override
 	public String toString() {
-		String sudokuGrid = "";
-
-		// validates to see if the file had a valid puzzle size before attempting
-		// toString()
-		if (grid != null) {
-			for (int i = 0; i < puzzleSize; i++) {
-				for (int j = 0; j < puzzleSize; j++) {
-
-					// setting same format as the supplied output files
-					if (j == puzzleSize - 1) {
-						sudokuGrid += grid[i][j];
-					} else {
-						sudokuGrid += grid[i][j] + ",";
-					}
-				}
-
-				// prevents creating empty line at end of file
-				if (i != puzzleSize - 1) {
-					sudokuGrid += "\n";
-				}
+		StringWriter sudokuGrid = new StringWriter();
+
+		// checks to see if the puzzle was read in before attempting toString()
+		if (cells != null) {
+			try {
+				writeGrid(sudokuGrid);
+			} catch (IOException e) {
+				// StringWriter doesn't throw
 			}
 		} else {
 
@@ -148,86 +146,37 @@ public class StdSudokuGrid extends SudokuGrid {
 
 		}
 
-		return sudokuGrid;
+		return sudokuGrid.toString();
 	} // end of toString()
 
 	@Override
-	public boolean validate() {
-		boolean validated = true;
-
-		if (grid != null) {
-
-			// check row
-			for (int i = 0; validated && i < puzzleSize; i++) {
-
-				// create new hash set for values in row (returns false if trying to add
-				// duplicate value)
-				HashSet<Integer> valuesInRow = new HashSet<Integer>();
-
-				for (int j = 0; validated && j < puzzleSize; j++) {
-
-					if (grid[i][j] != -1) {
-
-						// if false, then it is a duplicate
-						if (!valuesInRow.add(grid[i][j])) {
-							validated = false;
-
-						}
-
-					}
-				}
-			}
-
-			// check column
-			for (int j = 0; validated && j < puzzleSize; j++) {
+	public void writeGrid(Writer out) throws IOException {
+		GridWriter gridWriter = new GridWriter(out);
+		gridWriter.write(this);
+		gridWriter.flush();
+	} // end of writeGrid()
 
-				// create new hash set for values in column (returns false if trying to add
-				// duplicate value)
-				HashSet<Integer> valuesInColumn = new HashSet<Integer>();
-
-				for (int i = 0; validated && i < puzzleSize; i++) {
-
-					if (grid[i][j] != -1) {
-
-						// if false, then it is a duplicate
-						if (!valuesInColumn.add(grid[i][j])) {
-							validated = false;
+	@Override
+	public boolean validate() {
 
-						}
+		// nothing read in yet, so nothing to break
+		if (cells == null) {
+			return true;
+		}
 
-					}
-				}
-			}
+		// check every row, column and square for duplicates
+		return checker.checkAll(cells);
+	} // end of validate()
 
-			// check squares
-			double squareSize = Math.sqrt(puzzleSize);
-			for (int row = 0; validated && row < puzzleSize; row = row + (int) squareSize) {
-				for (int col = 0; validated && col < puzzleSize; col = col + (int) squareSize) {
-
-					// create new hash set for values in square (returns false if trying to add
-					// duplicate value)
-					HashSet<Integer> valuesInSquare = new HashSet<Integer>();
-
-					// go through all of the square (row/col+squareSize keeps it within the current
-					// square)
-					for (int i = row; validated && i < row + squareSize; i++) {
-						for (int j = col; validated && j < col + squareSize; j++) {
-
-							if (grid[i][j] != -1) {
-								// if false, then it is a duplicate
-								if (!valuesInSquare.add(grid[i][j])) {
-									validated = false;
-
-								}
-							}
-						}
-					}
-				}
-			}
+	@Override
+	public boolean validate(int row, int col) {
 
-			
+		if (cells == null) {
+			return true;
 		}
-		return validated;
+
+		// only the row, column and square through the changed cell
+		return checker.checkCell(cells, row, col);
 	} // end of validate()
 
 	
@@ -241,9 +190,53 @@ public class StdSudokuGrid extends SudokuGrid {
 		return this.symbols;
 	}
 
+	/**
+	 * Returns a snapshot of the grid as a 2D array.  The array is a fresh copy
+	 * of the cells each call, so writing to it doesn't change the grid; use
+	 * getCells() for that.
+	 */
+	@Override
+	public int[][] getStdGrid() {
+		if (cells == null) {
+			return null;
+		}
+
+		int[][] sudokuGrid = new int[puzzleSize][puzzleSize];
+		for (int i = 0; i < puzzleSize; i++) {
+			for (int j = 0; j < puzzleSize; j++) {
+				sudokuGrid[i][j] = cells[i * puzzleSize + j];
+			}
+		}
+
+		return sudokuGrid;
+	}
+
+	@Override
+	public short[] getCells() {
+		return this.cells;
+	}
+
+	@Override
+	public int[] getCageIds() {
+		// killer method
+		return null;
+	}
+
+	@Override
+	public int[] getCageTargets() {
+		// killer method
+		return null;
+	}
+
+	@Override
+	public int[] getCageSizes() {
+		// killer method
+		return null;
+	}
+
 	@Override
-	public int[][] getStdGrid() { 
-		return this.grid;
+	short[] currentCells() {
+		return this.cells;
 	}
 
 	@Override
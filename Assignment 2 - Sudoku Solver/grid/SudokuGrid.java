@@ -5,6 +5,7 @@
  package grid;
 
  import java.io.*;
+import java.nio.ByteBuffer;
 import java.util.List;
 
 
@@ -21,7 +22,8 @@ public abstract class SudokuGrid
      * more details about the format of the input files.
      *
      * @param filename Filename of the file containing the intial configuration
-     *                  of the grid we will solve.
+     *                  of the grid we will solve.  Either a path, or the name
+     *                  of a file in SampleGames/.
      *
      * @throws FileNotFoundException If filename is not found.
      * @throws IOException If there are some IO exceptions when openning or closing
@@ -31,6 +33,20 @@ public abstract class SudokuGrid
         throws FileNotFoundException, IOException;
 
 
+    /**
+     * Construct the grid from a puzzle held in memory, e.g. a mapped file or
+     * a wrapped byte array, in the same format as the input files.  Reading
+     * starts at the buffer's position and stops at the end of the buffer or at
+     * an empty line, leaving the position just after the puzzle so the next
+     * puzzle in the buffer can be read.
+     *
+     * @param source Bytes of the puzzle.
+     *
+     * @throws IOException If the puzzle is malformed.
+     */
+    public abstract void initGrid(ByteBuffer source) throws IOException;
+
+
     /**
      * Write out the current values in the grid to file.  This must be implemented
      * in order for your assignment to be evaluated by our testing.
@@ -45,6 +61,19 @@ public abstract class SudokuGrid
         throws FileNotFoundException, IOException;
 
 
+    /**
+     * Streams the current values in the grid to out, in the same format as
+     * outputGrid().  Nothing is written after the last row, and out is flushed
+     * but not closed.  For dumping many grids to one stream, use a single
+     * GridWriter instead.
+     *
+     * @param out Writer to send the grid to.
+     *
+     * @throws IOException If writing to out fails.
+     */
+    public abstract void writeGrid(Writer out) throws IOException;
+
+
     /**
      * Converts grid to a String representation.  Useful for displaying to
      * output streams.
@@ -63,14 +92,63 @@ public abstract class SudokuGrid
      */
     public abstract boolean validate();    
     
+    
+    /**
+     * Checks only the constraints touched by a change to one cell: its row,
+     * column and box (and cage, for Killer Sudoku).  Use after placing a value
+     * in a grid that was already valid.
+     *
+     * @param row Row of the changed cell.
+     * @param col Column of the changed cell.
+     *
+     * @return True if those constraints are still satisfied.
+     */
+    public abstract boolean validate(int row, int col);
+    
     public abstract int getPuzzleSize();
     
+    /**
+     * @return Snapshot of the cell values as a 2D array (-1 if empty), or null
+     *          for Killer Sudoku.  Changes to it are not written back to the
+     *          grid; solvers should use getCells().
+     */
     public abstract int[][] getStdGrid();
     
+    /**
+     * Direct access to the cell values for solvers.  Cells are stored
+     * row-major (row * puzzleSize + col) and hold -1 when empty.  Writing to
+     * the returned array updates the grid.
+     *
+     * @return Cell values of the grid.
+     */
+    public abstract short[] getCells();
+    
+    /**
+     * @return For each cell (row-major), the index of its cage, or null for
+     *          standard Sudoku.
+     */
+    public abstract int[] getCageIds();
+    
+    /**
+     * @return Target sum of each cage, or null for standard Sudoku.
+     */
+    public abstract int[] getCageTargets();
+    
+    /**
+     * @return Number of cells in each cage, or null for standard Sudoku.
+     */
+    public abstract int[] getCageSizes();
+    
     public abstract KillerCell[][] getKillerGrid();
     
     public abstract int[] getSymbols();
     
     public abstract List<KillerCage> getCages();
+    
+    /**
+     * Cell values for GridWriter, the same array as getCells() without
+     * building any other view of the grid.
+     */
+    abstract short[] currentCells();
 
 } // end of abstract class SudokuGrid
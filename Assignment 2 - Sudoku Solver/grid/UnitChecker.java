@@ -0,0 +1,167 @@
+/**
+ * @author Jeffrey Chan & Minyi Li, RMIT 2020
+ */
+package grid;
+
+import java.util.Arrays;
+
+/**
+ * Duplicate checks for the rows, columns and boxes of a grid stored as a flat
+ * row-major cell array.  Each check marks seen symbols in a long bitmask, so
+ * nothing is allocated.  Above 64 symbols a bitmask is too small, so a stamp
+ * array with one entry per symbol is used instead (reused from check to
+ * check, so still nothing is allocated).
+ */
+class UnitChecker {
+
+	private int puzzleSize;
+	private int squareSize;
+	// symbol index of each symbol value, -1 for values that aren't symbols
+	private int[] symbolIndex;
+
+	// symbols seen in the unit being checked: a bitmask for up to 64
+	// symbols, otherwise the symbols whose stamp equals the current stamp
+	private long seen;
+	private int[] seenStamps;
+	private int stamp;
+
+	UnitChecker(int puzzleSize, int[] symbols) {
+		this.puzzleSize = puzzleSize;
+		this.squareSize = (int) Math.sqrt(puzzleSize);
+
+		int maxSymbol = 0;
+		for (int symbol : symbols) {
+			maxSymbol = Math.max(maxSymbol, symbol);
+		}
+
+		this.symbolIndex = new int[maxSymbol + 1];
+		for (int i = 0; i < symbolIndex.length; i++) {
+			symbolIndex[i] = -1;
+		}
+		for (int k = 0; k < symbols.length; k++) {
+			if (symbols[k] >= 0) {
+				symbolIndex[symbols[k]] = k;
+			}
+		}
+
+		if (symbols.length > 64) {
+			this.seenStamps = new int[symbols.length];
+			this.stamp = 0;
+		}
+	} // end of UnitChecker()
+
+	/**
+	 * @return True if no row, column or box has a repeated symbol.
+	 */
+	boolean checkAll(short[] cells) {
+		for (int i = 0; i < puzzleSize; i++) {
+			if (!checkRow(cells, i) || !checkColumn(cells, i)) {
+				return false;
+			}
+		}
+
+		for (int box = 0; box < puzzleSize; box++) {
+			if (!checkBox(cells, (box / squareSize) * squareSize, (box % squareSize) * squareSize)) {
+				return false;
+			}
+		}
+
+		return true;
+	}
+
+	/**
+	 * @return True if the row, column and box through (row, col) have no
+	 *         repeated symbol.
+	 */
+	boolean checkCell(short[] cells, int row, int col) {
+		return checkRow(cells, row)
+				&& checkColumn(cells, col)
+				&& checkBox(cells, row - row % squareSize, col - col % squareSize);
+	}
+
+	boolean checkRow(short[] cells, int row) {
+		beginUnit();
+		for (int j = 0; j < puzzleSize; j++) {
+			if (!mark(cells[row * puzzleSize + j])) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	boolean checkColumn(short[] cells, int col) {
+		beginUnit();
+		for (int i = 0; i < puzzleSize; i++) {
+			if (!mark(cells[i * puzzleSize + col])) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * @param top First row of the box.
+	 * @param left First column of the box.
+	 */
+	boolean checkBox(short[] cells, int top, int left) {
+		beginUnit();
+		for (int i = top; i < top + squareSize; i++) {
+			for (int j = left; j < left + squareSize; j++) {
+				if (!mark(cells[i * puzzleSize + j])) {
+					return false;
+				}
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Starts checking a new unit, with no symbols seen.
+	 */
+	private void beginUnit() {
+		if (seenStamps == null) {
+			seen = 0;
+			return;
+		}
+
+		// a new stamp forgets the last unit, the array only needs clearing
+		// when the stamps wrap around
+		stamp++;
+		if (stamp == 0) {
+			Arrays.fill(seenStamps, 0);
+			stamp = 1;
+		}
+	}
+
+	/**
+	 * Marks a cell's value as seen in the current unit.
+	 *
+	 * @return False if the value isn't one of the symbols or was already
+	 *         seen, true otherwise (empty cells included).
+	 */
+	private boolean mark(int value) {
+		if (value == -1) {
+			return true;
+		}
+		if (value < 0 || value >= symbolIndex.length || symbolIndex[value] == -1) {
+			return false;
+		}
+
+		int k = symbolIndex[value];
+		if (seenStamps == null) {
+			long bit = 1L << k;
+			if ((seen & bit) != 0) {
+				return false;
+			}
+			seen |= bit;
+		} else {
+			if (seenStamps[k] == stamp) {
+				return false;
+			}
+			seenStamps[k] = stamp;
+		}
+
+		return true;
+	}
+
+} // end of class UnitChecker
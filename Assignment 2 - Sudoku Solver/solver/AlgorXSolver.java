@@ -4,7 +4,6 @@
 package solver;
 
 import java.util.ArrayList;
-import java.util.Arrays;
 import java.util.List;
 
 import grid.SudokuGrid;
@@ -19,8 +18,51 @@ public class AlgorXSolver extends StdSudokuSolver {
 	private int squareSize;
 	private int matrixRowLength;
 	private int matrixColLength;
+	
+	// sparse exact cover matrix: the 4 columns of each row, the rows of each
+	// column, and whether each row/column is still in the matrix
+	private int[][] rowColumns;
+	private int[][] columnRows;
+	private boolean[] rowActive;
+	private boolean[] columnActive;
+	// number of rows still in the matrix in each column
+	private int[] colCount;
+	
+	// open columns as a sparse set: the first numOpenColumns entries of
+	// openColumns, and the position of every column in it
+	private int[] openColumns;
+	private int[] openColumnPos;
+	private int numOpenColumns;
+	
+	// optional buckets of the open columns by row count, as doubly linked
+	// lists ended by -1, so the smallest column heads the first non-empty one
+	private boolean bucketedSelection;
+	private int[] bucketHead;
+	private int[] bucketNext;
+	private int[] bucketPrev;
+	
+	// undo stacks of the rows and columns taken out of the matrix, so
+	// backtracking can put back exactly what a choice removed
+	private int[] removedRows;
+	private int numRemovedRows;
+	private int[] removedColumns;
+	private int numRemovedColumns;
+	
+	// symbol of every cell of the last solution, row by row (null if none)
+	private int[] solution;
 
-	public AlgorXSolver() {} // end of AlgorXSolver()
+	public AlgorXSolver() {
+		this(false);
+	} // end of AlgorXSolver()
+	
+	/**
+	 * @param bucketedSelection True to keep the open columns bucketed by row
+	 *          count, so the smallest one is found by checking at most n + 1
+	 *          buckets instead of every open column.
+	 */
+	public AlgorXSolver(boolean bucketedSelection) {
+		this.bucketedSelection = bucketedSelection;
+	} // end of AlgorXSolver()
 
 	@Override
 	public boolean solve(SudokuGrid grid) {
@@ -28,181 +70,264 @@ public class AlgorXSolver extends StdSudokuSolver {
 		this.puzzleSize = grid.getPuzzleSize();
 		this.symbols = grid.getSymbols();
 		this.squareSize = (int)Math.sqrt(puzzleSize);
-		int[][] sudokuGrid = grid.getStdGrid();
+		short[] cells = grid.getCells();
+		this.solution = null;
 		
 		
 		// create matrix
-		boolean[][] matrix = initializeMatrix(sudokuGrid);
+		initializeMatrix();
+		
+		// take the givens out of the matrix, a clash means there is no solution
+		if(!coverGivens(cells)) {
+			return false;
+		}
 		
 		// create answers list
 		List<Integer> answers = new ArrayList<>();
 		
-		// create list of columns
-		List<Integer> columns = createHeadersList();
+		// start solving, the grid is only written to once solved
+		return findExactCover(answers, cells);
+	} // end of solve()
+	
+	
+	/**
+	 * @return Symbol of every cell of the last puzzle solved, row by row
+	 *          (cell (row, col) is at row * n + col), or null if the last
+	 *          solve() found no solution.
+	 */
+	public int[] getSolution() {
+		return this.solution;
+	}
+	
+	
+	/**
+	 * @return True once a solution is found and written to cells.  On
+	 *          false the matrix is as it was when called.
+	 */
+	private boolean findExactCover(List<Integer>answers, short[] cells) {
 		
-		// start solving
-		sudokuGrid = findExactCover(columns, answers, sudokuGrid, matrix);
+		// if no column is left open then the puzzle is solved
+		if(numOpenColumns == 0) {
+			report("Successfully solved the puzzle via AlgorithmX");
+			
+			// translate to sudoku board
+			translateToSudokuBoard(answers, cells);
+			return true;
+		}
 		
+		// get column with the fewest rows left
+		int column = selectSmallestColumn();
 		
-		// check if solved
-		boolean solved = true;
-		for(int i = 0; i < puzzleSize; i++) {
-			for(int j = 0; j < puzzleSize; j++) {
-				// not solved if -1 is present
-				if(sudokuGrid[i][j] == -1) {
-					solved = false;
-				}
-			}
+		// no row can cover it, so this is a dead end
+		if(colCount[column] == 0) {
+			return false;
 		}
 		
+		// iterate through the rows of that column still in the matrix
+		for(int i : columnRows[column]) {
+			if(!rowActive[i]) {
+				continue;
+			}
+			
+			// add row to answers
+			answers.add(i);
+			
+			// remember how far the undo stacks go before this choice
+			int rowMark = numRemovedRows;
+			int columnMark = numRemovedColumns;
+			
+			// cover the row, its columns and every row clashing with it
+			selectRow(i);
+			
+			// recursion, stopping at the first solution
+			if(findExactCover(answers, cells)) {
+				return true;
+			}
+			
+			// if not right then restore previous states (backtrack) and remove row from answers
+			restore(rowMark, columnMark);
+			answers.remove(answers.size() - 1);
+		}
 		
-		return solved;
-	} // end of solve()
+		return false;
+	}
 	
 	
-	private List<Integer> createHeadersList() {
+	/**
+	 * Takes the columns of row out of the matrix, along with every row that
+	 * has a 1 in them (row itself included).
+	 */
+	private void selectRow(int row) {
 		
-		// create a list of all columns in the matrix
-		List<Integer> columns = new ArrayList<>();
+		// iterate through columns of the row
+		for(int j : rowColumns[row]) {
+			
+			// cover every row of the column still in the matrix
+			for(int i2 : columnRows[j]) {
+				if(rowActive[i2]) {
+					removeRow(i2);
+				}
+			}
+			
+			// cover the column
+			closeColumn(j);
+		}
+	}
+	
+	
+	private void removeRow(int row) {
+		rowActive[row] = false;
 		
-		// add the number of columns into the list
-		for(int j = 0; j < matrixColLength; j++) {
-			columns.add(j);
+		// the row no longer counts towards its columns
+		for(int j : rowColumns[row]) {
+			if(bucketedSelection && columnActive[j]) {
+				unlinkBucket(j);
+				colCount[j]--;
+				linkBucket(j);
+			} else {
+				colCount[j]--;
+			}
 		}
 		
-		return columns;
+		removedRows[numRemovedRows++] = row;
 	}
 	
 	
-	
-	private int[][] findExactCover(List<Integer> columns, List<Integer>answers, int[][] sudokuGrid, boolean[][] matrix) {
-		
-		// if columns list is empty then the puzzle is solved
-		if(columns.size() == 0) {
-			System.out.println("Successfully solved the puzzle via AlgorithmX");
+	/**
+	 * Puts back every row and column removed since the undo stacks were at
+	 * rowMark and columnMark, in reverse order.
+	 */
+	private void restore(int rowMark, int columnMark) {
+		while(numRemovedRows > rowMark) {
+			int row = removedRows[--numRemovedRows];
+			rowActive[row] = true;
 			
-			// translate to sudoku board
-			sudokuGrid = translateToSudokuBoard(answers, sudokuGrid);
-			
-		}else {
-			
-			// get column with smallest amount of true
-			int column = selectSmallestColumn(columns, matrix);
-			
-			// iterate through rows
-			for(int i = 0; i < matrixRowLength; i++) {
-				
-				// if the row in that column is true
-				if(matrix[i][column] == true) {
-					
-					// add row to answers
-					answers.add(i);
-					
-					// save previous states for backtracking
-					boolean[][] matrixQuickSave = matrix;
-					List<Integer> columnsQuickSave = columns;
-					
-					// iterate through columns
-					for(int j = 0; j < matrixColLength; j++) {
-						
-						// if contains true
-						if(matrix[i][j] == true) {
-							
-							// iterate through rows
-							for(int i2 = 0; i2 < matrixRowLength; i2++) {
-								
-								// if contains true and is not equal to original row
-								if(matrix[i2][j] == true) {
-									if(i2 != i) {
-										// cover row (set it all to false)
-										Arrays.fill(matrix[i2], false);
-									}
-								}
-							}
-							
-							// cover the column (set it all to false)
-							matrix = coverColumn(j, matrix);
-							
-							// remove the column from the columns list
-							columns.remove(columns.indexOf(j));
-
-							
-						}
-						
-					}
-					
-					// cover the row (set it all to false)
-					Arrays.fill(matrix[i], false);
-					
-					// recursion
-					findExactCover(columns, answers, sudokuGrid, matrix);
-					
-					// if not right then restore previous states (backtrack) and remove row from answers
-					matrix = matrixQuickSave;
-					columns = columnsQuickSave;
-					answers.remove(answers.indexOf(i));
-					
+			for(int j : rowColumns[row]) {
+				if(bucketedSelection && columnActive[j]) {
+					unlinkBucket(j);
+					colCount[j]++;
+					linkBucket(j);
+				} else {
+					colCount[j]++;
 				}
-				
 			}
 		}
 		
-		return sudokuGrid;
+		while(numRemovedColumns > columnMark) {
+			reopenColumn(removedColumns[--numRemovedColumns]);
+		}
+	}
+	
+	
+	/**
+	 * Takes column j out of the open columns in O(1), by swapping it with the
+	 * last open one.
+	 */
+	private void closeColumn(int j) {
+		columnActive[j] = false;
+		
+		int pos = openColumnPos[j];
+		int last = openColumns[--numOpenColumns];
+		openColumns[pos] = last;
+		openColumnPos[last] = pos;
+		openColumns[numOpenColumns] = j;
+		openColumnPos[j] = numOpenColumns;
+		
+		if(bucketedSelection) {
+			unlinkBucket(j);
+		}
+		
+		removedColumns[numRemovedColumns++] = j;
+	}
+	
+	
+	/**
+	 * Puts back column j.  Columns are reopened in the reverse order they
+	 * were closed, so j is still just past the open ones.
+	 */
+	private void reopenColumn(int j) {
+		columnActive[j] = true;
+		numOpenColumns++;
+		
+		if(bucketedSelection) {
+			linkBucket(j);
+		}
+	}
+	
+	
+	// add column j to the front of the bucket for its row count
+	private void linkBucket(int j) {
+		int head = bucketHead[colCount[j]];
+		bucketPrev[j] = -1;
+		bucketNext[j] = head;
+		if(head != -1) {
+			bucketPrev[head] = j;
+		}
+		bucketHead[colCount[j]] = j;
+	}
+	
+	
+	// take column j out of the bucket for its row count
+	private void unlinkBucket(int j) {
+		if(bucketPrev[j] == -1) {
+			bucketHead[colCount[j]] = bucketNext[j];
+		} else {
+			bucketNext[bucketPrev[j]] = bucketNext[j];
+		}
+		if(bucketNext[j] != -1) {
+			bucketPrev[bucketNext[j]] = bucketPrev[j];
+		}
 	}
 	
 	
-	private int[][] translateToSudokuBoard(List<Integer> answers, int[][] sudokuGrid) {
+	private void translateToSudokuBoard(List<Integer> answers, short[] cells) {
 		
-		// iterate through answers list
+		// iterate through answers list, each matrix row index is
+		// (row * n + col) * n + symbol so it decodes straight to its cell
 		for(int answer : answers) {
+			int cell = answer / puzzleSize;
 			
-			// iterate through the board
-			for(int i = 0; i < puzzleSize; i++) {
-				for(int j = 0; j < puzzleSize; j++) {
-					
-					// iterate through all symbols
-					for(int k = 0; k < symbols.length; k++) {
-						
-						// if the index in the matrix = the answer 
-						if(getMatrixIndex(i,j,k) == answer) {
-							
-							// add the answer to that specific cell
-							sudokuGrid[i][j] = this.symbols[k];
-							
-						}	
-					}
-				}
-			}
+			// add the answer to that specific cell
+			cells[cell] = (short) this.symbols[answer % puzzleSize];
 		}
 		
-		return sudokuGrid;
+		// keep a copy of the board, givens included
+		this.solution = new int[cells.length];
+		for(int cell = 0; cell < cells.length; cell++) {
+			solution[cell] = cells[cell];
+		}
 	}
 	
 	
-	private int selectSmallestColumn(List<Integer> columns, boolean[][] matrix) {
+	private int selectSmallestColumn() {
+		
+		// the first non-empty bucket holds the smallest columns
+		if(bucketedSelection) {
+			for(int count = 0; count <= puzzleSize; count++) {
+				if(bucketHead[count] != -1) {
+					return bucketHead[count];
+				}
+			}
+			
+			return -1;
+		}
+		
 		// set minimum value to highest possible value
 		int minimum = Integer.MAX_VALUE;
 		int smallest = -1;
 		
-		// iterate through all columns
-		for(int j = 0; j < matrixColLength; j++) {
+		// iterate through the open columns, the counts are kept up to date
+		for(int c = 0; c < numOpenColumns; c++) {
+			int j = openColumns[c];
 			
-			// check if column is in columns list
-			if(columns.contains(j)) {
-				int numTrue = 0;
-				
-				// iterate through and count the number of true
-				for(int i = 0; i < matrixRowLength; i++) {
-					
-					if(matrix[i][j] == true) {
-						numTrue++;
-					}
-				}
+			// if smaller than current stored, replace it
+			if(colCount[j] < minimum) {
+				minimum = colCount[j];
+				smallest = j;
 				
-				// if smaller than current stored, replace it
-				if(numTrue < minimum) {
-					minimum = numTrue;
-					smallest = j;
+				// can't get smaller than an empty column
+				if(minimum == 0) {
+					break;
 				}
 			}
 		}
@@ -211,18 +336,7 @@ public class AlgorXSolver extends StdSudokuSolver {
 	}
 	
 	
-	private boolean[][] coverColumn(int column, boolean[][] matrix) {
-		// iterate through column and set all true to false
-		for(int i = 0; i < matrixRowLength; i++) {
-			if(matrix[i][column] == true)
-				matrix[i][column] = false;
-		}
-		
-		return matrix;
-	}
-	
-
-	private boolean[][] createMatrix() {
+	private void initializeMatrix() {
 		
 		// Row is puzzleSize^3 since there are x rows, and x columns, and x values
 		this.matrixRowLength = puzzleSize*puzzleSize*puzzleSize;
@@ -230,82 +344,124 @@ public class AlgorXSolver extends StdSudokuSolver {
 		// Columns is puzzleSize^2 * 4 since there are x rows, and x columns, and 4 constraints
 		this.matrixColLength = puzzleSize*puzzleSize*4;
 		
-		// initialize grid matrix with boolean (since can either be 0 or 1)
-		boolean[][] matrix = new boolean[matrixRowLength][matrixColLength];
-		
-		//set constraints 
-		int currColumn = 0;
-		
-		//single cell constraint
-		for(int i = 0; i < puzzleSize; i++) {
-			for(int j = 0; j < puzzleSize; j++, currColumn++) {
-				for(int k = 0; k < symbols.length; k++) {
-					matrix[getMatrixIndex(i,j,k)][currColumn] = true;
-				}
+		// each row has exactly 4 ones and each column exactly puzzleSize ones,
+		// so only those are stored instead of the whole matrix
+		this.rowColumns = new int[matrixRowLength][];
+		this.columnRows = new int[matrixColLength][puzzleSize];
+		int[] columnFill = new int[matrixColLength];
+		this.rowActive = new boolean[matrixRowLength];
+		this.columnActive = new boolean[matrixColLength];
+		this.colCount = new int[matrixColLength];
+		this.openColumns = new int[matrixColLength];
+		this.openColumnPos = new int[matrixColLength];
+		this.numOpenColumns = matrixColLength;
+		if(bucketedSelection) {
+			this.bucketHead = new int[puzzleSize + 1];
+			this.bucketNext = new int[matrixColLength];
+			this.bucketPrev = new int[matrixColLength];
+			for(int count = 0; count <= puzzleSize; count++) {
+				bucketHead[count] = -1;
 			}
 		}
 		
-		//row constraint
-		for(int i = 0; i < puzzleSize; i++) {
-			for(int k = 0; k < symbols.length; k++, currColumn++) {
-				for(int j = 0; j < puzzleSize; j++) {
-					matrix[getMatrixIndex(i,j,k)][currColumn] = true;
-				}
-			}
-		}
+		// every row and column is removed at most once on the way down
+		this.removedRows = new int[matrixRowLength];
+		this.numRemovedRows = 0;
+		this.removedColumns = new int[matrixColLength];
+		this.numRemovedColumns = 0;
 		
-		//column constraint
-		for(int j = 0; j < puzzleSize; j++) {
-			for(int k = 0; k < symbols.length; k++, currColumn++) {
-				for(int i = 0; i < puzzleSize; i++) {
-					matrix[getMatrixIndex(i,j,k)][currColumn] = true;
-				}
+		for(int i = 0; i < matrixRowLength; i++) {
+			rowActive[i] = true;
+		}
+		for(int j = 0; j < matrixColLength; j++) {
+			columnActive[j] = true;
+			colCount[j] = puzzleSize;
+			openColumns[j] = j;
+			openColumnPos[j] = j;
+			if(bucketedSelection) {
+				linkBucket(j);
 			}
 		}
 		
-		//square constraint
-		for(int i = 0; i < puzzleSize; i += squareSize) {
-			for(int j = 0; j < puzzleSize; j += squareSize) {
-				for(int k = 0; k < symbols.length; k++, currColumn++) {
-					for(int r = 0; r < squareSize; r++) {
-						for(int c = 0; c < squareSize; c++) {
-							matrix[getMatrixIndex(i+r, j+c, k)][currColumn] = true;
-						}
+		//iterate through the candidate rows in index order, so every column lists its rows in order
+		for(int i = 0; i < puzzleSize; i++) {
+			for(int j = 0; j < puzzleSize; j++) {
+				for(int k = 0; k < symbols.length; k++) {
+					int row = getMatrixIndex(i,j,k);
+					
+					rowColumns[row] = getConstraintColumns(i,j,k);
+					for(int column : rowColumns[row]) {
+						columnRows[column][columnFill[column]++] = row;
 					}
 				}
 			}
 		}
-
-		return matrix;
-		
 	}
 	
 	
-	private boolean[][] initializeMatrix(int[][] sudokuGrid) {
-		boolean[][] matrix = createMatrix();
+	/**
+	 * Selects the row of every given up front, removing its columns and every
+	 * row that clashes with it, so the search only sees the open cells and the
+	 * constraints they still have to meet.
+	 *
+	 * @return False if a given clashes with another one (or isn't a symbol).
+	 */
+	private boolean coverGivens(short[] cells) {
 		
 		//iterate through the sudoku grid loaded in
 		for(int i = 0; i < puzzleSize; i++) {
 			for(int j = 0; j < puzzleSize; j++) {
+				int value = cells[i * puzzleSize + j];
 				
 				//check if the cell already has a value
-				if(sudokuGrid[i][j] != -1) {
-					
-					//go through list of symbols
-					for(int k = 0; k < symbols.length; k++) {
-						
-						//set everything that doesn't already have a value in the row to false
-						if(sudokuGrid[i][j] != symbols[k]) {
-							
-							Arrays.fill(matrix[getMatrixIndex(i,j,k)], false);
-							
-						}
-					}
+				if(value == -1) {
+					continue;
 				}
+				
+				int k = getSymbolIndex(value);
+				if(k == -1) {
+					return false;
+				}
+				
+				// already covered by another given
+				int row = getMatrixIndex(i,j,k);
+				if(!rowActive[row]) {
+					return false;
+				}
+				
+				selectRow(row);
 			}
 		}
 		
-		return matrix;
+		return true;
+	}
+	
+	
+	private int getSymbolIndex(int value) {
+		for(int k = 0; k < symbols.length; k++) {
+			if(symbols[k] == value) {
+				return k;
+			}
+		}
+		
+		return -1;
+	}
+	
+	
+	/**
+	 * @return The cell, row, column and square constraint columns of placing
+	 *          symbol k at (row, col), in increasing order.
+	 */
+	private int[] getConstraintColumns(int row, int col, int k) {
+		int numCells = puzzleSize*puzzleSize;
+		int square = (row/squareSize)*squareSize + col/squareSize;
+		
+		return new int[] {
+			row*puzzleSize + col,
+			numCells + row*puzzleSize + k,
+			numCells*2 + col*puzzleSize + k,
+			numCells*3 + square*puzzleSize + k
+		};
 	}
 	
 	
@@ -0,0 +1,257 @@
+/*
+ * @author Jeffrey Chan & Minyi Li, RMIT 2020
+ */
+
+package solver;
+
+import java.util.concurrent.ForkJoinPool;
+
+import grid.SudokuGrid;
+
+/**
+ * Dancing links solver for standard Sudoku, encoding the puzzle for the
+ * ExactCover engine.  Each candidate (row, col, symbol) is an exact cover row
+ * with one column in each of the cell, row, column and box constraints.
+ * Cover/uncover and column choice are the same as DancingLinksSolver, so both
+ * find the same solutions in the same order.
+ *
+ * Given a ForkJoinPool, a single puzzle is searched on several cores instead
+ * (see ExactCover.search(long, ExactCoverListener, ForkJoinPool, int)), so
+ * which solution ends up in the grid can differ from run to run.
+ */
+public class ArrayDancingLinksSolver extends StdSudokuSolver implements SolutionCounter {
+
+	/**
+	 * Solution limit that searches the whole tree.
+	 */
+	public static final long ALL_SOLUTIONS = ExactCover.ALL_SOLUTIONS;
+
+	private int puzzleSize;
+	private int[] symbols;
+	private int squareSize;
+
+	// exact cover rows of every candidate, built once for templateSize and
+	// reused by every puzzle of that size (0 until the first puzzle)
+	private int templateSize = 0;
+	private ExactCover exactCover;
+
+	// search stops once this many solutions are found
+	private long solutionLimit;
+	private long solutionCount;
+	private SolutionListener listener;
+	// false while counting, so the grid is left as it is
+	private boolean writeSolution = true;
+	// board handed to the listener, givens plus the current solution
+	private int[][] listenerBoard;
+	// grid cells of the puzzle being solved, and the covers decoded so far
+	private short[] cells;
+	private long numDecoded;
+
+	// parallel search: pool to split it over (null to search on the calling
+	// thread) and the number of branching levels split into tasks
+	private ForkJoinPool pool;
+	private int splitLevels;
+
+	public ArrayDancingLinksSolver() {
+		this(1);
+	} // end of ArrayDancingLinksSolver()
+
+	/**
+	 * @param solutionLimit Number of solutions to find before stopping, 1 for
+	 *          the first solution only or ALL_SOLUTIONS for the whole tree.
+	 */
+	public ArrayDancingLinksSolver(long solutionLimit) {
+		this.solutionLimit = solutionLimit;
+	} // end of ArrayDancingLinksSolver()
+
+	/**
+	 * Solver that splits each search over a pool.
+	 *
+	 * @param solutionLimit As for ArrayDancingLinksSolver(long).
+	 * @param pool Pool to run the search tasks on.
+	 * @param splitLevels Number of branching levels, from the top of the
+	 *          search, whose rows become separate tasks.
+	 */
+	public ArrayDancingLinksSolver(long solutionLimit, ForkJoinPool pool, int splitLevels) {
+		this.solutionLimit = solutionLimit;
+		this.pool = pool;
+		this.splitLevels = splitLevels;
+	} // end of ArrayDancingLinksSolver()
+
+	/**
+	 * Counts solutions with the same search as solve(), but without writing
+	 * to the grid or calling the listener.
+	 */
+	@Override
+	public long countSolutions(SudokuGrid grid, long limit) {
+		long savedLimit = solutionLimit;
+		SolutionListener savedListener = listener;
+		solutionLimit = limit;
+		listener = null;
+		writeSolution = false;
+
+		try {
+			solve(grid);
+			return solutionCount;
+		} finally {
+			solutionLimit = savedLimit;
+			listener = savedListener;
+			writeSolution = true;
+		}
+	} // end of countSolutions()
+
+	/**
+	 * @param listener Called for every solution found, or null for none.  In
+	 *          a parallel search it is called from the pool's threads, one
+	 *          call at a time.
+	 */
+	public void setSolutionListener(SolutionListener listener) {
+		this.listener = listener;
+	}
+
+	/**
+	 * @return Number of solutions found by the last solve(), at most the
+	 *          solution limit.
+	 */
+	public long getSolutionCount() {
+		return this.solutionCount;
+	}
+
+	@Override
+	public boolean solve(SudokuGrid grid) {
+		// create everything needed for solving
+		this.puzzleSize = grid.getPuzzleSize();
+		this.symbols = grid.getSymbols();
+		this.squareSize = (int) Math.sqrt(puzzleSize);
+		this.cells = grid.getCells();
+
+		// encode the Sudoku constraints, only when the puzzle size changes
+		if (templateSize != puzzleSize) {
+			exactCover = buildExactCover();
+			templateSize = puzzleSize;
+		}
+
+		this.solutionCount = 0;
+
+		// take the givens out of the problem, a clash means there is no
+		// solution
+		if (!selectGivens()) {
+			exactCover.unselectAll();
+			return false;
+		}
+
+		// listener works on its own copy so the grid keeps the first solution
+		if (listener != null) {
+			listenerBoard = new int[puzzleSize][puzzleSize];
+			for (int cell = 0; cell < cells.length; cell++) {
+				listenerBoard[cell / puzzleSize][cell % puzzleSize] = cells[cell];
+			}
+		}
+
+		// only decode covers if something needs them
+		ExactCoverListener decoder = null;
+		if (writeSolution || listener != null) {
+			decoder = this::decode;
+		}
+		numDecoded = 0;
+
+		// start solving
+		if (pool == null) {
+			solutionCount = exactCover.search(solutionLimit, decoder);
+		} else {
+			solutionCount = exactCover.search(solutionLimit, decoder, pool, splitLevels);
+		}
+
+		// the search leaves the links as it found them, so putting the givens
+		// back readies them for the next puzzle
+		exactCover.unselectAll();
+
+		return solutionCount > 0;
+	} // end of solve()
+
+	/**
+	 * Writes the first cover to the grid and passes every cover to the
+	 * listener.  Row r is the candidate (r / n^2, (r / n) % n, symbol r % n).
+	 *
+	 * @return False if the listener asked to stop.
+	 */
+	private boolean decode(int[] rows, int numRows) {
+		numDecoded++;
+
+		// the grid keeps the first solution
+		if (numDecoded == 1 && writeSolution) {
+			report("Successfully solved the puzzle via array dancing links");
+			for (int d = 0; d < numRows; d++) {
+				int r = rows[d];
+				cells[r / puzzleSize] = (short) symbols[r % puzzleSize];
+			}
+		}
+
+		if (listener != null) {
+			for (int d = 0; d < numRows; d++) {
+				int r = rows[d];
+				listenerBoard[r / (puzzleSize * puzzleSize)][(r / puzzleSize) % puzzleSize] = symbols[r % puzzleSize];
+			}
+			return listener.solutionFound(listenerBoard);
+		}
+
+		return true;
+	}
+
+	/**
+	 * Adds a row for every candidate (row, col, symbol), in that order, so
+	 * the row id of a candidate is (row * n + col) * n + symbol.
+	 */
+	private ExactCover buildExactCover() {
+		int numCells = puzzleSize * puzzleSize;
+		ExactCover cover = new ExactCover(numCells * 4, 0);
+
+		int[] rowColumns = new int[4];
+		for (int i = 0; i < puzzleSize; i++) {
+			for (int j = 0; j < puzzleSize; j++) {
+				int box = (i / squareSize) * squareSize + j / squareSize;
+
+				for (int k = 0; k < puzzleSize; k++) {
+					// cell, row, column and box constraints
+					rowColumns[0] = i * puzzleSize + j;
+					rowColumns[1] = numCells + i * puzzleSize + k;
+					rowColumns[2] = numCells * 2 + j * puzzleSize + k;
+					rowColumns[3] = numCells * 3 + box * puzzleSize + k;
+
+					cover.addRow(rowColumns);
+				}
+			}
+		}
+
+		return cover;
+	}
+
+	/**
+	 * Selects the row of every given up front, so the search only sees the
+	 * open cells and the constraints they still have to meet.
+	 *
+	 * @return False if a given clashes with another one (or isn't a symbol).
+	 */
+	private boolean selectGivens() {
+		for (int cell = 0; cell < cells.length; cell++) {
+			if (cells[cell] == -1) {
+				continue;
+			}
+
+			int k = 0;
+			while (k < puzzleSize && symbols[k] != cells[cell]) {
+				k++;
+			}
+			if (k == puzzleSize) {
+				return false;
+			}
+
+			if (!exactCover.selectRow(cell * puzzleSize + k)) {
+				return false;
+			}
+		}
+
+		return true;
+	}
+
+} // end of class ArrayDancingLinksSolver
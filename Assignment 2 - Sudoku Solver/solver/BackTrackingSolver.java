@@ -17,7 +17,7 @@ public class BackTrackingSolver extends StdSudokuSolver {
 	public boolean solve(SudokuGrid grid) {
 
 		// get all variables from the grid
-		int[][] sudokuGrid = grid.getStdGrid();
+		short[] cells = grid.getCells();
 		int[] symbols = grid.getSymbols();
 		int puzzleSize = grid.getPuzzleSize();
 
@@ -26,14 +26,14 @@ public class BackTrackingSolver extends StdSudokuSolver {
 			for (int j = 0; j < puzzleSize; j++) {
 
 				// check if the cell is "empty"
-				if (sudokuGrid[i][j] == -1) {
+				if (cells[i * puzzleSize + j] == -1) {
 
 					// go through all symbols and see if it can be inserted
 					for (int k = 0; k < symbols.length; k++) {
-						sudokuGrid[i][j] = symbols[k];
+						cells[i * puzzleSize + j] = (short) symbols[k];
 
 						// check if the inserted symbol is valid
-						if (grid.validate()) {
+						if (grid.validate(i, j)) {
 
 							// recursion on solve method to set next empty cell
 							if (solve(grid))
@@ -43,7 +43,7 @@ public class BackTrackingSolver extends StdSudokuSolver {
 						}
 
 						// if no symbols work, set it to "empty" and then backtrack to previous cell
-						sudokuGrid[i][j] = -1;
+						cells[i * puzzleSize + j] = -1;
 					}
 
 					// if no possible solution, return false
@@ -53,7 +53,7 @@ public class BackTrackingSolver extends StdSudokuSolver {
 		}
 
 		// return true for successful solution (no more empty cells in the grid)
-		System.out.println("Successfully solved the puzzle via backtracking");
+		report("Successfully solved the puzzle via backtracking");
 		return true;
 	} // end of solve()
 
@@ -0,0 +1,76 @@
+/*
+ * @author Jeffrey Chan & Minyi Li, RMIT 2020
+ */
+
+package solver;
+
+import grid.SudokuGrid;
+
+/**
+ * Backtracking solver for standard Sudoku that checks placements against
+ * incremental row/column/box bitmasks instead of calling grid.validate().
+ */
+public class BitmaskBackTrackingSolver extends StdSudokuSolver {
+
+	private ConstraintMasks masks;
+	private int numCells;
+
+	public BitmaskBackTrackingSolver() {} // end of BitmaskBackTrackingSolver()
+
+	@Override
+	public boolean solve(SudokuGrid grid) {
+
+		// load the givens into the row/column/box masks
+		this.masks = new ConstraintMasks(grid);
+		this.numCells = masks.getNumCells();
+
+		// givens already clash, so there is nothing to search
+		if (!masks.isConsistent()) {
+			return false;
+		}
+
+		if (solveFrom(0)) {
+			// copy the solution into the grid
+			masks.writeTo(grid);
+			report("Successfully solved the puzzle via bitmask backtracking");
+			return true;
+		}
+
+		return false;
+	} // end of solve()
+
+	private boolean solveFrom(int cell) {
+
+		// skip over the cells that are already filled
+		while (cell < numCells && masks.getSymbolIndex(cell) != -1) {
+			cell++;
+		}
+
+		// no more empty cells in the grid
+		if (cell == numCells) {
+			return true;
+		}
+
+		// go through all symbols and see if it can be inserted
+		int puzzleSize = masks.getPuzzleSize();
+		for (int k = 0; k < puzzleSize; k++) {
+
+			// O(1) check against the row, column and box masks
+			if (masks.canPlace(cell, k)) {
+				masks.place(cell, k);
+
+				// recursion on the next empty cell
+				if (solveFrom(cell + 1)) {
+					return true;
+				}
+
+				// undo and try the next symbol
+				masks.remove(cell);
+			}
+		}
+
+		// if no possible solution, backtrack
+		return false;
+	}
+
+} // end of class BitmaskBackTrackingSolver
@@ -0,0 +1,298 @@
+/*
+ * @author Jeffrey Chan & Minyi Li, RMIT 2020
+ */
+
+package solver;
+
+import grid.SudokuGrid;
+
+/**
+ * Algorithm X solver for standard Sudoku that keeps the exact cover matrix as
+ * bitsets.  The rows still in the matrix are one bit each in a long[], and
+ * every column stores the words its rows fall in together with a mask of
+ * them, so covering a column, counting its rows (Long.bitCount) and walking
+ * them each handle 64 candidate rows per word.
+ *
+ * Every search level has its own copy of the active rows and open columns,
+ * so backtracking is just going back up a level, and a level's state is all
+ * another thread would need to search that subtree.
+ */
+public class BitsetAlgorXSolver extends StdSudokuSolver {
+
+	private int puzzleSize;
+	private int[] symbols;
+	private int squareSize;
+
+	// matrix layout, built once for templateSize and reused by every puzzle
+	// of that size (0 until the first puzzle)
+	private int templateSize = 0;
+	private int numRows;
+	private int numColumns;
+	private int rowWords;
+	private int columnWords;
+	// the 4 columns of each row
+	private int[][] rowColumns;
+	// the words holding each column's rows, and the bits of its rows in them
+	private int[][] columnWordIndex;
+	private long[][] columnWordMask;
+
+	// per search level: rows still in the matrix and columns still open
+	private long[][] activeRows;
+	private long[][] openColumns;
+	// row chosen at each level
+	private int[] chosenRows;
+
+	// grid cells of the puzzle being solved
+	private short[] cells;
+
+	public BitsetAlgorXSolver() {} // end of BitsetAlgorXSolver()
+
+	@Override
+	public boolean solve(SudokuGrid grid) {
+		// create everything needed for solving
+		this.puzzleSize = grid.getPuzzleSize();
+		this.symbols = grid.getSymbols();
+		this.squareSize = (int) Math.sqrt(puzzleSize);
+		this.cells = grid.getCells();
+
+		// encode the Sudoku constraints, only when the puzzle size changes
+		if (templateSize != puzzleSize) {
+			buildMatrix();
+			templateSize = puzzleSize;
+		}
+
+		// level 0 starts with every row and column in the matrix
+		long[] rows = activeRows[0];
+		long[] columns = openColumns[0];
+		for (int w = 0; w < rowWords; w++) {
+			rows[w] = -1L;
+		}
+		if ((numRows & 63) != 0) {
+			rows[rowWords - 1] = (1L << (numRows & 63)) - 1;
+		}
+		for (int w = 0; w < columnWords; w++) {
+			columns[w] = -1L;
+		}
+		if ((numColumns & 63) != 0) {
+			columns[columnWords - 1] = (1L << (numColumns & 63)) - 1;
+		}
+
+		// take the givens out of the matrix, a clash means there is no
+		// solution
+		if (!coverGivens()) {
+			return false;
+		}
+
+		// start solving
+		if (search(0)) {
+			report("Successfully solved the puzzle via bitset Algorithm X");
+			return true;
+		}
+
+		return false;
+	} // end of solve()
+
+	/**
+	 * Searches from the matrix at depth, writing the first solution to the
+	 * grid.
+	 */
+	private boolean search(int depth) {
+		long[] rows = activeRows[depth];
+		long[] columns = openColumns[depth];
+
+		// column with the fewest rows left, -1 if every column is covered
+		int best = -1;
+		int bestCount = Integer.MAX_VALUE;
+		for (int w = 0; w < columnWords && bestCount > 1; w++) {
+			long bits = columns[w];
+			while (bits != 0) {
+				int c = (w << 6) + Long.numberOfTrailingZeros(bits);
+				bits &= bits - 1;
+
+				int count = countRows(rows, c);
+				if (count < bestCount) {
+					best = c;
+					bestCount = count;
+
+					// can't do better than a forced or dead column
+					if (count <= 1) {
+						break;
+					}
+				}
+			}
+		}
+
+		// every column covered, so the chosen rows are a solution
+		if (best == -1) {
+			for (int d = 0; d < depth; d++) {
+				int r = chosenRows[d];
+				cells[r / puzzleSize] = (short) symbols[r % puzzleSize];
+			}
+			return true;
+		}
+
+		// no row can cover it, so this is a dead end
+		if (bestCount == 0) {
+			return false;
+		}
+
+		// try every row of that column still in the matrix
+		int[] wordIndex = columnWordIndex[best];
+		long[] wordMask = columnWordMask[best];
+		for (int t = 0; t < wordIndex.length; t++) {
+			long bits = rows[wordIndex[t]] & wordMask[t];
+			while (bits != 0) {
+				int r = (wordIndex[t] << 6) + Long.numberOfTrailingZeros(bits);
+				bits &= bits - 1;
+
+				chosenRows[depth] = r;
+				selectRow(depth, r);
+				if (search(depth + 1)) {
+					return true;
+				}
+			}
+		}
+
+		return false;
+	}
+
+	/**
+	 * @return Number of rows of column c among rows.
+	 */
+	private int countRows(long[] rows, int c) {
+		int[] wordIndex = columnWordIndex[c];
+		long[] wordMask = columnWordMask[c];
+
+		int count = 0;
+		for (int t = 0; t < wordIndex.length; t++) {
+			count += Long.bitCount(rows[wordIndex[t]] & wordMask[t]);
+		}
+
+		return count;
+	}
+
+	/**
+	 * Sets the matrix at depth + 1 to the one at depth with row r selected:
+	 * r's columns are closed and every row with a 1 in them (r included) is
+	 * removed.
+	 */
+	private void selectRow(int depth, int r) {
+		long[] rows = activeRows[depth + 1];
+		long[] columns = openColumns[depth + 1];
+		System.arraycopy(activeRows[depth], 0, rows, 0, rowWords);
+		System.arraycopy(openColumns[depth], 0, columns, 0, columnWords);
+
+		for (int c : rowColumns[r]) {
+			int[] wordIndex = columnWordIndex[c];
+			long[] wordMask = columnWordMask[c];
+			for (int t = 0; t < wordIndex.length; t++) {
+				rows[wordIndex[t]] &= ~wordMask[t];
+			}
+
+			columns[c >>> 6] &= ~(1L << (c & 63));
+		}
+	}
+
+	/**
+	 * Selects the row of every given in level 0 of the matrix, so the search
+	 * only sees the open cells and the constraints they still have to meet.
+	 *
+	 * @return False if a given clashes with another one (or isn't a symbol).
+	 */
+	private boolean coverGivens() {
+		for (int cell = 0; cell < cells.length; cell++) {
+			if (cells[cell] == -1) {
+				continue;
+			}
+
+			int k = 0;
+			while (k < puzzleSize && symbols[k] != cells[cell]) {
+				k++;
+			}
+			if (k == puzzleSize) {
+				return false;
+			}
+
+			// already covered by another given
+			int r = cell * puzzleSize + k;
+			if ((activeRows[0][r >>> 6] & (1L << (r & 63))) == 0) {
+				return false;
+			}
+
+			// select into level 1 and copy it back, level 0 is where the
+			// search starts
+			selectRow(0, r);
+			System.arraycopy(activeRows[1], 0, activeRows[0], 0, rowWords);
+			System.arraycopy(openColumns[1], 0, openColumns[0], 0, columnWords);
+		}
+
+		return true;
+	}
+
+	/**
+	 * Builds the columns of every candidate row (row, col, symbol), whose
+	 * row id is (row * n + col) * n + symbol, and the word masks of every
+	 * column.
+	 */
+	private void buildMatrix() {
+		int numCells = puzzleSize * puzzleSize;
+		this.numRows = numCells * puzzleSize;
+		this.numColumns = numCells * 4;
+		this.rowWords = (numRows + 63) >>> 6;
+		this.columnWords = (numColumns + 63) >>> 6;
+
+		// rows of every column, in increasing order
+		this.rowColumns = new int[numRows][];
+		int[][] columnRows = new int[numColumns][puzzleSize];
+		int[] columnFill = new int[numColumns];
+		for (int i = 0; i < puzzleSize; i++) {
+			for (int j = 0; j < puzzleSize; j++) {
+				int box = (i / squareSize) * squareSize + j / squareSize;
+
+				for (int k = 0; k < puzzleSize; k++) {
+					int r = (i * puzzleSize + j) * puzzleSize + k;
+
+					// cell, row, column and box constraints
+					rowColumns[r] = new int[] {
+						i * puzzleSize + j,
+						numCells + i * puzzleSize + k,
+						numCells * 2 + j * puzzleSize + k,
+						numCells * 3 + box * puzzleSize + k
+					};
+					for (int c : rowColumns[r]) {
+						columnRows[c][columnFill[c]++] = r;
+					}
+				}
+			}
+		}
+
+		// group each column's rows by the word they fall in
+		this.columnWordIndex = new int[numColumns][];
+		this.columnWordMask = new long[numColumns][];
+		int[] wordIndex = new int[puzzleSize];
+		long[] wordMask = new long[puzzleSize];
+		for (int c = 0; c < numColumns; c++) {
+			int numWords = 0;
+			for (int r : columnRows[c]) {
+				if (numWords == 0 || wordIndex[numWords - 1] != r >>> 6) {
+					wordIndex[numWords] = r >>> 6;
+					wordMask[numWords] = 0;
+					numWords++;
+				}
+				wordMask[numWords - 1] |= 1L << (r & 63);
+			}
+
+			columnWordIndex[c] = new int[numWords];
+			columnWordMask[c] = new long[numWords];
+			System.arraycopy(wordIndex, 0, columnWordIndex[c], 0, numWords);
+			System.arraycopy(wordMask, 0, columnWordMask[c], 0, numWords);
+		}
+
+		// every level chooses a row for an open cell, so there are at most
+		// numCells levels below the top one
+		this.activeRows = new long[numCells + 1][rowWords];
+		this.openColumns = new long[numCells + 1][columnWords];
+		this.chosenRows = new int[numCells];
+	}
+
+} // end of class BitsetAlgorXSolver
@@ -0,0 +1,163 @@
+/*
+ * @author Jeffrey Chan & Minyi Li, RMIT 2020
+ */
+package solver;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Table of the cage combinations of a symbol set.  For every cage size and
+ * target sum it holds each set of distinct symbols that fits, and the mask of
+ * the symbols used by any of them (bit k set = symbols[k]), so looking up a
+ * cell's candidates is one array access once the entry is filled.
+ *
+ * Entries are filled the first time they are asked for, enumerating only the
+ * combinations of that size that can still reach that sum, and never change
+ * after that.  Tables are shared by every solver and thread through
+ * forSymbols().  Supports up to 64 positive symbols, though a large cage with
+ * a middling sum can still have a great many combinations.
+ */
+public final class CageCombinations {
+
+	// tables built so far, by symbol set
+	private static final ConcurrentHashMap<List<Integer>, CageCombinations> tables =
+			new ConcurrentHashMap<>();
+
+	private final int[] symbols;
+	private final int maxSum;
+	// indexed by [size][sum], null until first asked for
+	private final Entry[][] entries;
+
+	/**
+	 * Combinations of one (size, sum).  The fields are final, so an entry
+	 * filled by one thread is seen whole by the others.
+	 */
+	private static final class Entry {
+		private final long candidateMask;
+		private final long[] combinations;
+
+		private Entry(long candidateMask, long[] combinations) {
+			this.candidateMask = candidateMask;
+			this.combinations = combinations;
+		}
+	}
+
+	/**
+	 * Growable array of the combinations found while filling an entry.
+	 */
+	private static final class Collector {
+		private long[] masks = new long[16];
+		private int numMasks = 0;
+		private long candidateMask = 0L;
+
+		private void add(long mask) {
+			if (numMasks == masks.length) {
+				masks = Arrays.copyOf(masks, numMasks * 2);
+			}
+			masks[numMasks++] = mask;
+			candidateMask |= mask;
+		}
+	}
+
+	private CageCombinations(int[] symbols) {
+		this.symbols = symbols;
+		int total = 0;
+		for (int symbol : symbols) {
+			total += symbol;
+		}
+		this.maxSum = total;
+		this.entries = new Entry[symbols.length + 1][maxSum + 1];
+	} // end of CageCombinations()
+
+	/**
+	 * @return The table for symbols, created on the first call for that
+	 *          symbol set (in that order).
+	 *
+	 * @throws IllegalArgumentException If there are more than 64 symbols, as
+	 *          they wouldn't fit in the masks.
+	 */
+	public static CageCombinations forSymbols(int[] symbols) {
+		if (symbols.length > 64) {
+			throw new IllegalArgumentException(symbols.length
+					+ " symbols is over the 64 a mask can hold");
+		}
+
+		List<Integer> key = new ArrayList<>(symbols.length);
+		for (int symbol : symbols) {
+			key.add(symbol);
+		}
+
+		// the array may change after this call, so the table gets a copy
+		final int[] copy = symbols.clone();
+		return tables.computeIfAbsent(Collections.unmodifiableList(key),
+				k -> new CageCombinations(copy));
+	}
+
+	/**
+	 * @return Mask of the symbols (by index) used by any combination of size
+	 *          distinct symbols adding up to sum, 0 if there is none.
+	 */
+	public long getCandidateMask(int size, int sum) {
+		Entry entry = getEntry(size, sum);
+		return entry == null ? 0L : entry.candidateMask;
+	}
+
+	/**
+	 * @return Every set of size distinct symbols adding up to sum, as masks of
+	 *          symbol indices in increasing order.  The array is a copy.
+	 */
+	public long[] getCombinations(int size, int sum) {
+		Entry entry = getEntry(size, sum);
+		return entry == null ? new long[0] : entry.combinations.clone();
+	}
+
+	/**
+	 * @return Entry of (size, sum), filled if this is the first time it is
+	 *          asked for, or null if no combination can fit.
+	 */
+	private Entry getEntry(int size, int sum) {
+		if (size < 0 || size > symbols.length || sum < 0 || sum > maxSum) {
+			return null;
+		}
+
+		Entry entry = entries[size][sum];
+		if (entry == null) {
+			// two threads may both fill it, but they fill it the same way
+			Collector found = new Collector();
+			findCombinations(size, sum, 0, 0, 0L, found);
+
+			entry = new Entry(found.candidateMask, Arrays.copyOf(found.masks, found.numMasks));
+			entries[size][sum] = entry;
+		}
+
+		return entry;
+	}
+
+	/**
+	 * Adds to found every set of size more distinct symbols (by index, from
+	 * start on, on top of the ones in chosen) that brings sum up to target.
+	 */
+	private void findCombinations(int size, int target, int start, int sum, long chosen,
+			Collector found) {
+		if (size == 0) {
+			if (sum == target) {
+				found.add(chosen);
+			}
+			return;
+		}
+
+		// stop once too few symbols are left to fill the cage
+		for (int k = start; k <= symbols.length - size; k++) {
+			// symbols are positive, so going past the target is a dead end
+			if (sum + symbols[k] > target) {
+				continue;
+			}
+			findCombinations(size - 1, target, k + 1, sum + symbols[k], chosen | (1L << k), found);
+		}
+	}
+
+} // end of class CageCombinations
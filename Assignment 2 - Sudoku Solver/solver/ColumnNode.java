@@ -2,13 +2,13 @@ package solver;
 
 public class ColumnNode extends DancingNode{
 	private int size;
-	private String name;
+	private int id;
 	
 	
-	public ColumnNode(String name) {
+	public ColumnNode(int id) {
 		super();
 		this.size = 0;
-		this.name = name;
+		this.id = id;
 		this.columnNode = this;
 	}
 	
@@ -41,8 +41,8 @@ public class ColumnNode extends DancingNode{
 		this.size = size;
 	}
 	
-	public String getName() {
-		return this.name;
+	public int getId() {
+		return this.id;
 	}
 	
 	
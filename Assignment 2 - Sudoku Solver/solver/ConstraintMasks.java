@@ -0,0 +1,177 @@
+/*
+ * @author Jeffrey Chan & Minyi Li, RMIT 2020
+ */
+package solver;
+
+import grid.SudokuGrid;
+
+/**
+ * Incremental constraint state for standard Sudoku. Keeps one "used symbol"
+ * bitmask per row, column and box (bit k set = symbols[k] is placed), so
+ * checking, placing and undoing a symbol are all O(1) and allocation free.
+ * Cells are indexed row-major (row * puzzleSize + col) and hold the index of
+ * their symbol, or -1 if empty. Supports puzzle sizes up to MAX_PUZZLE_SIZE.
+ */
+public class ConstraintMasks {
+
+	/**
+	 * Largest puzzle size whose symbols fit in one long mask.
+	 */
+	public static final int MAX_PUZZLE_SIZE = 64;
+
+	private int puzzleSize;
+	private int squareSize;
+	private int[] symbols;
+	private int[] cells;
+	private int[] boxOfCell;
+	private long[] rowUsed;
+	private long[] colUsed;
+	private long[] boxUsed;
+	private long fullMask;
+	private boolean consistent;
+
+	/**
+	 * @throws IllegalArgumentException If the grid is larger than
+	 *          MAX_PUZZLE_SIZE, as its symbols wouldn't fit in the masks.
+	 */
+	public ConstraintMasks(SudokuGrid grid) {
+		this.puzzleSize = grid.getPuzzleSize();
+		if (puzzleSize > MAX_PUZZLE_SIZE) {
+			throw new IllegalArgumentException("Puzzle size " + puzzleSize
+					+ " is over the " + MAX_PUZZLE_SIZE + " symbols a mask can hold");
+		}
+		this.squareSize = (int) Math.sqrt(puzzleSize);
+		this.symbols = grid.getSymbols();
+		this.fullMask = puzzleSize == 64 ? -1L : (1L << puzzleSize) - 1;
+
+		this.cells = new int[puzzleSize * puzzleSize];
+		this.boxOfCell = new int[puzzleSize * puzzleSize];
+		this.rowUsed = new long[puzzleSize];
+		this.colUsed = new long[puzzleSize];
+		this.boxUsed = new long[puzzleSize];
+		this.consistent = true;
+
+		short[] values = grid.getCells();
+
+		// load the givens, flagging the state inconsistent if two clash
+		for (int i = 0; i < puzzleSize; i++) {
+			for (int j = 0; j < puzzleSize; j++) {
+				int cell = i * puzzleSize + j;
+				boxOfCell[cell] = (i / squareSize) * squareSize + j / squareSize;
+				cells[cell] = -1;
+
+				if (values[cell] != -1) {
+					int k = symbolIndex(values[cell]);
+
+					if (k == -1 || !canPlace(cell, k)) {
+						consistent = false;
+					} else {
+						place(cell, k);
+					}
+				}
+			}
+		}
+	} // end of ConstraintMasks()
+
+	/**
+	 * @return False if the givens already break a constraint (or use an unknown
+	 *         symbol), in which case there is no solution.
+	 */
+	public boolean isConsistent() {
+		return this.consistent;
+	}
+
+	public boolean canPlace(int cell, int k) {
+		long bit = 1L << k;
+		return ((rowUsed[cell / puzzleSize] | colUsed[cell % puzzleSize] | boxUsed[boxOfCell[cell]]) & bit) == 0;
+	}
+
+	public void place(int cell, int k) {
+		long bit = 1L << k;
+		cells[cell] = k;
+		rowUsed[cell / puzzleSize] |= bit;
+		colUsed[cell % puzzleSize] |= bit;
+		boxUsed[boxOfCell[cell]] |= bit;
+	}
+
+	public void remove(int cell) {
+		long bit = ~(1L << cells[cell]);
+		cells[cell] = -1;
+		rowUsed[cell / puzzleSize] &= bit;
+		colUsed[cell % puzzleSize] &= bit;
+		boxUsed[boxOfCell[cell]] &= bit;
+	}
+
+	/**
+	 * @return Bitmask of the symbol indices that can still be placed in cell.
+	 */
+	public long candidates(int cell) {
+		return ~(rowUsed[cell / puzzleSize] | colUsed[cell % puzzleSize] | boxUsed[boxOfCell[cell]]) & fullMask;
+	}
+
+	public int getSymbolIndex(int cell) {
+		return this.cells[cell];
+	}
+
+	public int getPuzzleSize() {
+		return this.puzzleSize;
+	}
+
+	public int getSquareSize() {
+		return this.squareSize;
+	}
+
+	public int getNumCells() {
+		return this.cells.length;
+	}
+
+	public int getBox(int cell) {
+		return this.boxOfCell[cell];
+	}
+
+	/**
+	 * @return Row-major indices of all cells that are currently empty.
+	 */
+	public int[] emptyCells() {
+		int count = 0;
+		for (int cell = 0; cell < cells.length; cell++) {
+			if (cells[cell] == -1) {
+				count++;
+			}
+		}
+
+		int[] empty = new int[count];
+		count = 0;
+		for (int cell = 0; cell < cells.length; cell++) {
+			if (cells[cell] == -1) {
+				empty[count++] = cell;
+			}
+		}
+
+		return empty;
+	}
+
+	/**
+	 * Copies every placed symbol back into the grid.
+	 */
+	public void writeTo(SudokuGrid grid) {
+		short[] values = grid.getCells();
+
+		for (int cell = 0; cell < cells.length; cell++) {
+			if (cells[cell] != -1) {
+				values[cell] = (short) symbols[cells[cell]];
+			}
+		}
+	}
+
+	private int symbolIndex(int value) {
+		for (int k = 0; k < symbols.length; k++) {
+			if (symbols[k] == value) {
+				return k;
+			}
+		}
+
+		return -1;
+	}
+
+} // end of class ConstraintMasks
@@ -0,0 +1,53 @@
+/*
+ * @author Jeffrey Chan & Minyi Li, RMIT 2020
+ */
+
+package solver;
+
+import grid.SudokuGrid;
+
+/**
+ * PropagatingSolver in front of a solver that can count solutions, so the
+ * pair can count them too.
+ */
+public class CountingPropagatingSolver extends PropagatingSolver implements SolutionCounter {
+
+	private SolutionCounter counter;
+
+	public <S extends SudokuSolver & SolutionCounter> CountingPropagatingSolver(S solver) {
+		super(solver);
+		this.counter = solver;
+	} // end of CountingPropagatingSolver()
+
+	/**
+	 * Propagation never removes a solution, so a contradiction means there
+	 * are none and a grid it fills has exactly one.  Otherwise the wrapped
+	 * solver counts them, on the grid as it was given.
+	 */
+	@Override
+	public long countSolutions(SudokuGrid grid, long limit) {
+
+		// too many symbols for the masks, so the wrapped solver does it all
+		if (grid.getPuzzleSize() > ConstraintMasks.MAX_PUZZLE_SIZE) {
+			return counter.countSolutions(grid, limit);
+		}
+
+		// the masks are a copy, so the grid is left as it is
+		ConstraintMasks masks = new ConstraintMasks(grid);
+		if (!masks.isConsistent()) {
+			return 0;
+		}
+
+		SinglesPropagator propagator = new SinglesPropagator(masks.getPuzzleSize());
+		if (!propagator.propagate(masks)) {
+			return 0;
+		}
+
+		if (masks.emptyCells().length == 0) {
+			return 1;
+		}
+
+		return counter.countSolutions(grid, limit);
+	} // end of countSolutions()
+
+} // end of class CountingPropagatingSolver
@@ -5,23 +5,95 @@
 package solver;
 
 import java.util.ArrayList;
-import java.util.Arrays;
 import java.util.LinkedList;
 import java.util.List;
 import grid.SudokuGrid;
 
 /**
- * Dancing links solver for standard Sudoku.
+ * Dancing links solver for standard Sudoku.  By default the search stops at
+ * the first solution.  It can instead count solutions up to a limit, or
+ * enumerate all of them through a SolutionListener.  The first solution found
+ * is always written to the grid.
  */
-public class DancingLinksSolver extends StdSudokuSolver {
+public class DancingLinksSolver extends StdSudokuSolver implements SolutionCounter {
+
+	/**
+	 * Solution limit that searches the whole tree.
+	 */
+	public static final long ALL_SOLUTIONS = Long.MAX_VALUE;
 
 	private int puzzleSize;
 	private int[] symbols;
 	private int squareSize;
-	private int matrixRowLength;
 	private int matrixColLength;
 
-	public DancingLinksSolver() {} // end of DancingLinksSolver()
+	// dancing links grid for templateSize, built once and reused by every
+	// puzzle of that size (0 until the first puzzle)
+	private int templateSize = 0;
+	private ColumnNode headNode;
+	// first node of each exact cover row, by row index
+	private DancingNode[] rowNodes;
+	// columns covered for the givens of the current puzzle, in order
+	private ColumnNode[] givenColumns;
+	private int numGivenColumns;
+
+	// search stops once this many solutions are found
+	private long solutionLimit;
+	private long solutionCount;
+	private SolutionListener listener;
+	// false while counting, so the grid is left as it is
+	private boolean writeSolution = true;
+	// board handed to the listener, givens plus the current solution
+	private int[][] listenerBoard;
+
+	public DancingLinksSolver() {
+		this(1);
+	} // end of DancingLinksSolver()
+
+	/**
+	 * @param solutionLimit Number of solutions to find before stopping, 1 for
+	 *          the first solution only or ALL_SOLUTIONS for the whole tree.
+	 */
+	public DancingLinksSolver(long solutionLimit) {
+		this.solutionLimit = solutionLimit;
+	} // end of DancingLinksSolver()
+
+	/**
+	 * Counts solutions with the same search as solve(), but without writing
+	 * to the grid or calling the listener.
+	 */
+	@Override
+	public long countSolutions(SudokuGrid grid, long limit) {
+		long savedLimit = solutionLimit;
+		SolutionListener savedListener = listener;
+		solutionLimit = limit;
+		listener = null;
+		writeSolution = false;
+
+		try {
+			solve(grid);
+			return solutionCount;
+		} finally {
+			solutionLimit = savedLimit;
+			listener = savedListener;
+			writeSolution = true;
+		}
+	} // end of countSolutions()
+
+	/**
+	 * @param listener Called for every solution found, or null for none.
+	 */
+	public void setSolutionListener(SolutionListener listener) {
+		this.listener = listener;
+	}
+
+	/**
+	 * @return Number of solutions found by the last solve(), at most the
+	 *          solution limit.
+	 */
+	public long getSolutionCount() {
+		return this.solutionCount;
+	}
 
 	@Override
 	public boolean solve(SudokuGrid grid) {
@@ -29,39 +101,79 @@ public class DancingLinksSolver extends StdSudokuSolver {
 		this.puzzleSize = grid.getPuzzleSize();
 		this.symbols = grid.getSymbols();
 		this.squareSize = (int)Math.sqrt(puzzleSize);
-		int[][] sudokuGrid = grid.getStdGrid();
+		short[] cells = grid.getCells();
+		
+		// initialize dancing links grid straight from the constraints, only
+		// when the puzzle size changes
+		if (templateSize != puzzleSize) {
+			headNode = createDancingLinksGrid();
+			templateSize = puzzleSize;
+		}
+		ColumnNode cNode = headNode;
 		
-		// initialize matrix
-		boolean[][] matrix = initializeMatrix(sudokuGrid);
+		this.solutionCount = 0;
 		
-		// initialize dancing links grid
-		ColumnNode cNode = createDancingLinksGrid(matrix);
+		// take the givens out of the grid, a clash means there is no solution
+		if (!coverGivens(cells)) {
+			uncoverGivens();
+			return false;
+		}
 		
 		// create list of solutions
 		List<DancingNode> solution = new LinkedList<>();
 		
+		// listener works on its own copy so the grid keeps the first solution
+		if (listener != null) {
+			listenerBoard = new int[puzzleSize][puzzleSize];
+			for (int i = 0; i < puzzleSize; i++) {
+				for (int j = 0; j < puzzleSize; j++) {
+					listenerBoard[i][j] = cells[i * puzzleSize + j];
+				}
+			}
+		}
+		
 		// start solving
-		sudokuGrid = startSolving(sudokuGrid, solution, cNode);
+		startSolving(cells, solution, cNode);
+		
+		// the search leaves the links as it found them, so putting the givens
+		// back readies the grid for the next puzzle
+		uncoverGivens();
 		
 		
 		// iterate through array and see if it is solved (not solved if there is a -1)
 		boolean solved = true;
-		for(int i = 0; i < puzzleSize; i++) {
-			for(int j = 0; j < puzzleSize; j++) {
-				if(sudokuGrid[i][j] == -1) {
-					solved = false;
-				}
+		for(int cell = 0; cell < cells.length; cell++) {
+			if(cells[cell] == -1) {
+				solved = false;
 			}
 		}
 		return solved;
 	} // end of solve()
 
-	private int[][] startSolving(int[][] sudokuGrid, List<DancingNode> solution, ColumnNode cNode) {
+	/**
+	 * @return True once the search should stop (solution limit reached or the
+	 *          listener asked to stop).  The links are fully restored either way.
+	 */
+	private boolean startSolving(short[] cells, List<DancingNode> solution, ColumnNode cNode) {
 
 		// checks if already solved
 		if (cNode.right == cNode) {
-			System.out.println("Successfully solved the puzzle via dancing links");
-			sudokuGrid = translateToSudokuBoard(solution, sudokuGrid);
+			solutionCount++;
+
+			// the grid keeps the first solution
+			if (solutionCount == 1 && writeSolution) {
+				report("Successfully solved the puzzle via dancing links");
+				translateToSudokuBoard(solution, cells);
+			}
+
+			if (listener != null) {
+				translateToSudokuBoard(solution, listenerBoard);
+				if (!listener.solutionFound(listenerBoard)) {
+					return true;
+				}
+			}
+
+			return solutionCount >= solutionLimit;
 		} else {
 
 			// gets column node with the smallest amount of nodes connected
@@ -84,7 +196,7 @@ public class DancingLinksSolver extends StdSudokuSolver {
 				}
 
 				// recursion to next
-				startSolving(sudokuGrid, solution, cNode);
+				boolean stop = startSolving(cells, solution, cNode);
 
 				// remove from potential answers
 				node = solution.remove(solution.size() - 1);
@@ -94,13 +206,19 @@ public class DancingLinksSolver extends StdSudokuSolver {
 				for (DancingNode otherNode = node.left; otherNode != node; otherNode = otherNode.left) {
 					otherNode.columnNode.uncover();
 				}
+
+				// goal met, unwind without trying the other rows
+				if (stop) {
+					colNode.uncover();
+					return true;
+				}
 			}
 
 			// uncover the column node
 			colNode.uncover();
 		}
 		
-		return sudokuGrid;
+		return false;
 	}
 
 	private ColumnNode getSmallestColumnNode(ColumnNode cNode) {
@@ -125,50 +243,46 @@ public class DancingLinksSolver extends StdSudokuSolver {
 		return smallest;
 	}
 	
-	private int[][] translateToSudokuBoard(List<DancingNode> solution, int[][] sudokuGrid){
+	private void translateToSudokuBoard(List<DancingNode> solution, short[] cells){
 		
 		// iterate through answer
 		for(DancingNode node : solution) {
-			DancingNode currentNode = node;
 			
-			// set minimum value to current columnNode
-			int minVal = Integer.parseInt(currentNode.columnNode.getName());
+			// every node of a row knows the row's index (row, column, symbol)
+			int rowIndex = node.rowIndex;
 			
-			// iterate right until tempNode's right is node
-			for(DancingNode tempNode = node.right; tempNode != node; tempNode = tempNode.right) {
-				
-				// set current value to the current node
-				int currVal = Integer.parseInt(tempNode.columnNode.getName());
-				
-				// iff current is smaller than minimum, replace currentNode with tempNode
-				if(currVal < minVal) {
-					minVal = currVal;
-					currentNode = tempNode;
-				}
-			}
-			
-			// set values for calculating
-			int value1 = Integer.parseInt(currentNode.columnNode.getName());
-			int value2 = Integer.parseInt(currentNode.right.columnNode.getName());
-			
-			// get row and column value for placing number into sudoku grid
-			int row = value1 / puzzleSize;
-			int column = value1 % puzzleSize;
+			//place number into the grid, cells are row-major like the rows
+			cells[rowIndex / puzzleSize] = (short) symbols[rowIndex % puzzleSize];
+		}
+	}
+	
+	private int[][] translateToSudokuBoard(List<DancingNode> solution, int[][] sudokuGrid){
+		int numCells = puzzleSize * puzzleSize;
+		
+		// iterate through answer
+		for(DancingNode node : solution) {
 			
-			// get number to place into sudoku grid
-			int num = (value2 % puzzleSize);
+			// every node of a row knows the row's index (row, column, symbol)
+			int rowIndex = node.rowIndex;
 			
 			//place number into the grid
-			sudokuGrid[row][column] = symbols[num];
+			sudokuGrid[rowIndex / numCells][(rowIndex / puzzleSize) % puzzleSize] = symbols[rowIndex % puzzleSize];
 		}
 		
 		return sudokuGrid;
 	}
 
-	private ColumnNode createDancingLinksGrid(boolean[][] matrix) {
+	private ColumnNode createDancingLinksGrid() {
+
+		// Columns is puzzleSize^2 * 4 since there are x rows, and x columns, and 4
+		// constraints
+		this.matrixColLength = puzzleSize * puzzleSize * 4;
+		int numCells = puzzleSize * puzzleSize;
+		this.rowNodes = new DancingNode[numCells * puzzleSize];
+		this.givenColumns = new ColumnNode[matrixColLength];
 
 		// initialize head column node
-		ColumnNode headColumnNode = new ColumnNode("Head");
+		ColumnNode headColumnNode = new ColumnNode(-1);
 		
 		// create list to store column nodes
 		ArrayList<ColumnNode> columns = new ArrayList<ColumnNode>();
@@ -176,7 +290,7 @@ public class DancingLinksSolver extends StdSudokuSolver {
 		
 		// create column nodes for as long as the matrix column is and connect them to the head column node
 		for (int i = 0; i < matrixColLength; i++) {
-			ColumnNode node = new ColumnNode(Integer.toString(i));
+			ColumnNode node = new ColumnNode(i);
 			columns.add(node);
 			headColumnNode = (ColumnNode) headColumnNode.setRight(node);
 		}
@@ -185,36 +299,47 @@ public class DancingLinksSolver extends StdSudokuSolver {
 		headColumnNode = headColumnNode.right.columnNode;
 
 		
-		// iterate through matrix row
-		for (int i = 0; i < matrixRowLength; i++) {
-			
-			//initialize a previous node
-			DancingNode previousNode = null;
+		// iterate through the candidate rows (row, column, symbol) of the matrix,
+		// creating the 4 nodes of each row straight from the constraints
+		int[] rowColumns = new int[4];
+		for (int i = 0; i < puzzleSize; i++) {
+			for (int j = 0; j < puzzleSize; j++) {
+				int square = (i / squareSize) * squareSize + j / squareSize;
 
-			
-			// iterate through matrix columns
-			for (int j = 0; j < matrixColLength; j++) {
-				
-				// if the value is true connect it
-				if (matrix[i][j] == true) {
-					
-					// get column node of true node
-					ColumnNode node = columns.get(j);
-					
-					// create a new node with the column node
-					DancingNode addNode = new DancingNode(node);
-
-					// if the previous hasn't been set before, make the new node the previous
-					if (previousNode == null) {
-						previousNode = addNode;
+				for (int k = 0; k < symbols.length; k++) {
+
+					int rowIndex = (i * puzzleSize + j) * puzzleSize + k;
+
+					// single cell, row, column and square constraints, in column order
+					rowColumns[0] = i * puzzleSize + j;
+					rowColumns[1] = numCells + i * puzzleSize + k;
+					rowColumns[2] = numCells * 2 + j * puzzleSize + k;
+					rowColumns[3] = numCells * 3 + square * puzzleSize + k;
+
+					//initialize a previous node
+					DancingNode previousNode = null;
+
+					for (int j2 : rowColumns) {
+						
+						// get column node of the constraint
+						ColumnNode node = columns.get(j2);
+						
+						// create a new node with the column node
+						DancingNode addNode = new DancingNode(node, rowIndex);
+
+						// if the previous hasn't been set before, make the new node the previous
+						if (previousNode == null) {
+							previousNode = addNode;
+							rowNodes[rowIndex] = addNode;
+						}
+						
+						// connect node
+						node.up.setDown(addNode);
+						previousNode = previousNode.setRight(addNode);
+						
+						// up the size of connected nodes
+						node.setSize(node.getSize() + 1);
 					}
-					
-					// connect node
-					node.up.setDown(addNode);
-					previousNode = previousNode.setRight(addNode);
-					
-					// up the size of connected nodes
-					node.setSize(node.getSize() + 1);
 				}
 			}
 		}
@@ -225,94 +350,69 @@ public class DancingLinksSolver extends StdSudokuSolver {
 		return headColumnNode;
 	}
 
-	private boolean[][] createMatrix() {
-
-		// Row is puzzleSize^3 since there are x rows, and x columns, and x values
-		this.matrixRowLength = puzzleSize * puzzleSize * puzzleSize;
-
-		// Columns is puzzleSize^2 * 4 since there are x rows, and x columns, and 4
-		// constraints
-		this.matrixColLength = puzzleSize * puzzleSize * 4;
+	/**
+	 * Selects the row of every given up front, covering its columns so the
+	 * search only sees the open cells and the constraints they still have to
+	 * meet.
+	 *
+	 * @return False if a given clashes with another one (or isn't a symbol).
+	 */
+	private boolean coverGivens(short[] cells) {
+		numGivenColumns = 0;
 
-		// initialize grid matrix with boolean (since can either be 0 or 1)
-		boolean[][] matrix = new boolean[matrixRowLength][matrixColLength];
-
-		// set constraints
-		int currColumn = 0;
-
-		// single cell constraint
+		// iterate through the sudoku grid loaded in
 		for (int i = 0; i < puzzleSize; i++) {
-			for (int j = 0; j < puzzleSize; j++, currColumn++) {
-				for (int k = 0; k < symbols.length; k++) {
-					matrix[getMatrixIndex(i, j, k)][currColumn] = true;
-				}
-			}
-		}
+			for (int j = 0; j < puzzleSize; j++) {
+				int value = cells[i * puzzleSize + j];
 
-		// row constraint
-		for (int i = 0; i < puzzleSize; i++) {
-			for (int k = 0; k < symbols.length; k++, currColumn++) {
-				for (int j = 0; j < puzzleSize; j++) {
-					matrix[getMatrixIndex(i, j, k)][currColumn] = true;
+				// check if the cell already has a value
+				if (value == -1) {
+					continue;
 				}
-			}
-		}
 
-		// column constraint
-		for (int j = 0; j < puzzleSize; j++) {
-			for (int k = 0; k < symbols.length; k++, currColumn++) {
-				for (int i = 0; i < puzzleSize; i++) {
-					matrix[getMatrixIndex(i, j, k)][currColumn] = true;
+				int k = getSymbolIndex(value);
+				if (k == -1) {
+					return false;
 				}
-			}
-		}
 
-		// square constraint
-		for (int i = 0; i < puzzleSize; i += squareSize) {
-			for (int j = 0; j < puzzleSize; j += squareSize) {
-				for (int k = 0; k < symbols.length; k++, currColumn++) {
-					for (int r = 0; r < squareSize; r++) {
-						for (int c = 0; c < squareSize; c++) {
-							matrix[getMatrixIndex(i + r, j + c, k)][currColumn] = true;
-						}
+				// cover every column of the given's row
+				DancingNode rowNode = rowNodes[(i * puzzleSize + j) * puzzleSize + k];
+				DancingNode node = rowNode;
+				do {
+					ColumnNode colNode = node.columnNode;
+
+					// already unlinked from the header list by another given
+					if (colNode.left.right != colNode) {
+						return false;
 					}
-				}
+
+					colNode.cover();
+					givenColumns[numGivenColumns++] = colNode;
+					node = node.right;
+				} while (node != rowNode);
 			}
 		}
 
-		return matrix;
-
+		return true;
 	}
 
-	private boolean[][] initializeMatrix(int[][] sudokuGrid) {
-		boolean[][] matrix = createMatrix();
-
-		// iterate through the sudoku grid loaded in
-		for (int i = 0; i < puzzleSize; i++) {
-			for (int j = 0; j < puzzleSize; j++) {
-
-				// check if the cell already has a value
-				if (sudokuGrid[i][j] != -1) {
-
-					// go through list of symbols
-					for (int k = 0; k < symbols.length; k++) {
-
-						// set everything that doesn't already have a value in the row to false
-						if (sudokuGrid[i][j] != symbols[k]) {
-
-							Arrays.fill(matrix[getMatrixIndex(i, j, k)], false);
+	/**
+	 * Undoes coverGivens(), uncovering its columns in reverse order.
+	 */
+	private void uncoverGivens() {
+		while (numGivenColumns > 0) {
+			givenColumns[--numGivenColumns].uncover();
+		}
+	}
 
-						}
-					}
-				}
+	private int getSymbolIndex(int value) {
+		for (int k = 0; k < symbols.length; k++) {
+			if (symbols[k] == value) {
+				return k;
 			}
 		}
 
-		return matrix;
-	}
-
-	private int getMatrixIndex(int row, int col, int value) {
-		return row * puzzleSize * puzzleSize + col * puzzleSize + value;
+		return -1;
 	}
 
 } // end of class DancingLinksSolver
\ No newline at end of file
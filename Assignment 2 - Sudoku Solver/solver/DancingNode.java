@@ -7,6 +7,7 @@ public class DancingNode{
 	protected DancingNode up;
 	protected DancingNode down;
 	protected ColumnNode columnNode;
+	protected int rowIndex;
 	
 	public DancingNode() {
 		this.left = this;
@@ -15,12 +16,13 @@ public class DancingNode{
 		this.down = this;
 	}
 	
-	public DancingNode(ColumnNode columnNode) {
+	public DancingNode(ColumnNode columnNode, int rowIndex) {
 		this.left = this;
 		this.right = this;
 		this.up = this;
 		this.down = this;
 		this.columnNode = columnNode;
+		this.rowIndex = rowIndex;
 	}
 	
 	public DancingNode setDown(DancingNode node) {
@@ -0,0 +1,580 @@
+/*
+ * @author Jeffrey Chan & Minyi Li, RMIT 2020
+ */
+
+package solver;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Generic exact cover engine (Algorithm X with dancing links).  A problem is
+ * given as rows of column ids.  Primary columns (ids 0..numPrimary-1) must be
+ * covered exactly once, secondary columns (the ids after them) at most once.
+ * Puzzle solvers only have to encode their constraints as rows and decode the
+ * rows of each cover found.
+ *
+ * The links are kept in flat int arrays.  Node 0 is the root, nodes
+ * 1..numColumns are the column headers (the header of column id c is node
+ * c + 1) and the rest are the 1-entries of the matrix.  Only primary headers
+ * are in the root's list, so the search never has to cover a secondary
+ * column.
+ *
+ * Rows can be selected before searching (e.g. the givens of a puzzle) and
+ * unselected afterwards, which puts the links back as they were built, so
+ * one engine can be reused for many problems with the same rows.
+ *
+ * An engine is not safe for use by several threads at once, but a search
+ * can itself be split over a ForkJoinPool.
+ */
+public class ExactCover {
+
+	/**
+	 * Solution limit that searches the whole tree.
+	 */
+	public static final long ALL_SOLUTIONS = Long.MAX_VALUE;
+
+	// a parallel search stops splitting once a column's rows times the live
+	// tasks would go over this many tasks per pool thread
+	private static final int TASKS_PER_THREAD = 4;
+
+	private int numPrimary;
+	private int numColumns;
+	private int numRows;
+
+	// links of each node, plus its column header and row id
+	private int[] left;
+	private int[] right;
+	private int[] up;
+	private int[] down;
+	private int[] column;
+	private int[] rowOf;
+	// number of nodes in each column, indexed by header node
+	private int[] size;
+	private int numNodes;
+	// first node of each row, by row id
+	private int[] rowStart;
+
+	// nodes of the cover so far, selected rows first, then one per depth
+	private int[] solution;
+	// row ids of a cover found, handed to the listener
+	private int[] coverRows;
+	private int numSelected;
+	// columns of the selected rows, indexed by header node
+	private boolean[] selectedColumn;
+
+	// search goal and results
+	private long solutionLimit;
+	private long solutionCount;
+	private ExactCoverListener listener;
+
+	// during a parallel search, set once every task should stop
+	private AtomicBoolean stopped;
+	// during a parallel search, tasks forked and not yet finished, and the
+	// pool's parallelism (both only used on the owner)
+	private AtomicInteger liveTasks;
+	private int parallelism;
+	// engine the search was started on, holding the solution count for all
+	// copies of the links (this, when not a copy)
+	private ExactCover owner = this;
+
+	/**
+	 * @param numPrimary Number of columns that must be covered exactly once.
+	 * @param numSecondary Number of columns that may be covered at most once.
+	 */
+	public ExactCover(int numPrimary, int numSecondary) {
+		this.numPrimary = numPrimary;
+		this.numColumns = numPrimary + numSecondary;
+
+		int capacity = 1 + numColumns + numColumns * 4;
+		left = new int[capacity];
+		right = new int[capacity];
+		up = new int[capacity];
+		down = new int[capacity];
+		column = new int[capacity];
+		rowOf = new int[capacity];
+		size = new int[numColumns + 1];
+		rowStart = new int[16];
+
+		// root and primary headers in one circular list, secondary headers
+		// each in a list of their own
+		for (int c = 0; c <= numColumns; c++) {
+			if (c <= numPrimary) {
+				left[c] = c == 0 ? numPrimary : c - 1;
+				right[c] = c == numPrimary ? 0 : c + 1;
+			} else {
+				left[c] = c;
+				right[c] = c;
+			}
+			up[c] = c;
+			down[c] = c;
+			column[c] = c;
+			rowOf[c] = -1;
+		}
+		numNodes = numColumns + 1;
+
+		// a cover never has more rows than columns
+		solution = new int[numColumns];
+		coverRows = new int[numColumns];
+		selectedColumn = new boolean[numColumns + 1];
+	} // end of ExactCover()
+
+	/**
+	 * Copy of the search state for a parallel search task.  Only the arrays
+	 * the search changes are copied.
+	 */
+	private ExactCover(ExactCover from) {
+		this.numPrimary = from.numPrimary;
+		this.numColumns = from.numColumns;
+		this.numRows = from.numRows;
+		this.column = from.column;
+		this.rowOf = from.rowOf;
+		this.numNodes = from.numNodes;
+		this.rowStart = from.rowStart;
+		this.numSelected = from.numSelected;
+		this.selectedColumn = from.selectedColumn;
+		this.solutionLimit = from.solutionLimit;
+		this.listener = from.listener;
+		this.stopped = from.stopped;
+		this.owner = from.owner;
+
+		this.left = from.left.clone();
+		this.right = from.right.clone();
+		this.up = from.up.clone();
+		this.down = from.down.clone();
+		this.size = from.size.clone();
+		this.solution = from.solution.clone();
+		this.coverRows = new int[numColumns];
+	} // end of ExactCover()
+
+	/**
+	 * Adds a row.  Rows can only be added while no rows are selected.
+	 *
+	 * @param columns Ids of the columns the row covers, each once, in any
+	 *          order.  There must be at least one.
+	 *
+	 * @return Id of the row, counting from 0 in the order rows are added.
+	 */
+	public int addRow(int... columns) {
+		if (columns.length == 0) {
+			throw new IllegalArgumentException("A row must cover at least one column");
+		}
+		if (numSelected > 0) {
+			throw new IllegalStateException("Rows can't be added while rows are selected");
+		}
+
+		int needed = numNodes + columns.length;
+		if (needed > left.length) {
+			int capacity = Math.max(needed, left.length * 2);
+			left = Arrays.copyOf(left, capacity);
+			right = Arrays.copyOf(right, capacity);
+			up = Arrays.copyOf(up, capacity);
+			down = Arrays.copyOf(down, capacity);
+			column = Arrays.copyOf(column, capacity);
+			rowOf = Arrays.copyOf(rowOf, capacity);
+		}
+		if (numRows == rowStart.length) {
+			rowStart = Arrays.copyOf(rowStart, numRows * 2);
+		}
+
+		int row = numRows++;
+		int first = numNodes;
+		rowStart[row] = first;
+
+		for (int n = 0; n < columns.length; n++) {
+			int node = numNodes++;
+			int col = columns[n] + 1;
+
+			column[node] = col;
+			rowOf[node] = row;
+
+			// bottom of the column
+			up[node] = up[col];
+			down[node] = col;
+			down[up[col]] = node;
+			up[col] = node;
+			size[col]++;
+
+			// end of the row
+			left[node] = n == 0 ? node : node - 1;
+			right[node] = first;
+			right[left[node]] = node;
+			left[first] = node;
+		}
+
+		return row;
+	} // end of addRow()
+
+	/**
+	 * Puts a row in every cover, taking its columns and the rows that clash
+	 * with it out of the problem.
+	 *
+	 * @return False, selecting nothing, if the row clashes with a row that
+	 *          is already selected.
+	 */
+	public boolean selectRow(int row) {
+		int first = rowStart[row];
+
+		int node = first;
+		do {
+			if (selectedColumn[column[node]]) {
+				return false;
+			}
+			node = right[node];
+		} while (node != first);
+
+		node = first;
+		do {
+			selectedColumn[column[node]] = true;
+			node = right[node];
+		} while (node != first);
+
+		choose(first, numSelected++);
+		return true;
+	} // end of selectRow()
+
+	/**
+	 * Undoes every selectRow(), in reverse order, so the links are as they
+	 * were built.
+	 */
+	public void unselectAll() {
+		while (numSelected > 0) {
+			int first = solution[--numSelected];
+			unchoose(first);
+
+			int node = first;
+			do {
+				selectedColumn[column[node]] = false;
+				node = right[node];
+			} while (node != first);
+		}
+	} // end of unselectAll()
+
+	/**
+	 * Searches for exact covers that include the selected rows.  The links
+	 * are as they were before the search when it returns.
+	 *
+	 * @param solutionLimit Number of covers to find before stopping, 1 for
+	 *          the first one only or ALL_SOLUTIONS for the whole tree.
+	 * @param listener Called for every cover found, or null for none.
+	 *
+	 * @return Number of covers found, at most solutionLimit.
+	 */
+	public long search(long solutionLimit, ExactCoverListener listener) {
+		this.solutionLimit = solutionLimit;
+		this.listener = listener;
+		this.solutionCount = 0;
+
+		searchFrom(numSelected);
+
+		return solutionCount;
+	} // end of search()
+
+	/**
+	 * As search(long, ExactCoverListener), but split over pool: for up to the
+	 * first splitLevels branching levels the rows of the smallest column are
+	 * forked as separate tasks, while there are few enough tasks to keep the
+	 * pool busy.  A task only copies the links when another thread takes it;
+	 * tasks left to the thread that forked them run on its links.  The tasks
+	 * all stop once the solution limit is reached, so which covers are found
+	 * first can differ from run to run.  The listener is called from the
+	 * pool's threads, one call at a time.
+	 */
+	public long search(long solutionLimit, ExactCoverListener listener, ForkJoinPool pool,
+			int splitLevels) {
+		this.solutionLimit = solutionLimit;
+		this.listener = listener;
+		this.solutionCount = 0;
+
+		// the tasks work on copies of the links, these ones are left as they are
+		stopped = new AtomicBoolean(false);
+		liveTasks = new AtomicInteger(1);
+		parallelism = pool.getParallelism();
+		try {
+			pool.invoke(new SearchTask(this, new int[0], numSelected, splitLevels));
+		} finally {
+			stopped = null;
+			liveTasks = null;
+		}
+
+		return solutionCount;
+	} // end of search()
+
+	/**
+	 * @return Number of rows added.
+	 */
+	public int getNumRows() {
+		return numRows;
+	}
+
+	/**
+	 * @return Number of columns, primary and secondary.
+	 */
+	public int getNumColumns() {
+		return numColumns;
+	}
+
+	/**
+	 * @return True once the search should stop (solution limit reached or the
+	 *          listener asked to stop).  The links are fully restored either way.
+	 */
+	private boolean searchFrom(int depth) {
+
+		// another task of a parallel search met the goal
+		if (stopped != null && stopped.get()) {
+			return true;
+		}
+
+		// every primary column covered, so the chosen rows are a cover
+		if (right[0] == 0) {
+			if (stopped == null) {
+				return foundSolution(depth);
+			}
+
+			// tasks of a parallel search take turns, and none counts past the
+			// goal
+			synchronized (owner) {
+				if (stopped.get()) {
+					return true;
+				}
+				boolean stop = foundSolution(depth);
+				if (stop) {
+					stopped.set(true);
+				}
+				return stop;
+			}
+		}
+
+		int col = smallestColumn();
+
+		cover(col);
+
+		// try each row of the column
+		for (int node = down[col]; node != col; node = down[node]) {
+			solution[depth] = node;
+
+			for (int other = right[node]; other != node; other = right[other]) {
+				cover(column[other]);
+			}
+
+			boolean stop = searchFrom(depth + 1);
+
+			for (int other = left[node]; other != node; other = left[other]) {
+				uncover(column[other]);
+			}
+
+			// goal met, unwind without trying the other rows
+			if (stop) {
+				uncover(col);
+				return true;
+			}
+		}
+
+		uncover(col);
+		return false;
+	}
+
+	/**
+	 * Counts the cover made of the rows chosen so far and passes it to the
+	 * listener.
+	 *
+	 * @return True if the search should stop.
+	 */
+	private boolean foundSolution(int depth) {
+		owner.solutionCount++;
+
+		if (listener != null) {
+			// hand over row ids rather than nodes
+			for (int d = 0; d < depth; d++) {
+				coverRows[d] = rowOf[solution[d]];
+			}
+			if (!listener.coverFound(coverRows, depth)) {
+				return true;
+			}
+		}
+
+		return owner.solutionCount >= solutionLimit;
+	}
+
+	/**
+	 * @return Primary column with the fewest rows left, the first one on ties.
+	 */
+	private int smallestColumn() {
+		int col = right[0];
+		for (int c = right[col]; c != 0 && size[col] > 0; c = right[c]) {
+			if (size[c] < size[col]) {
+				col = c;
+			}
+		}
+		return col;
+	}
+
+	/**
+	 * Parallel search from depth on this copy of the links, which are left as
+	 * they were found.  While levels is above 0 and the pool isn't busy
+	 * enough, every row of the smallest column but the first is forked as a
+	 * task and the first is searched here.  Forked tasks no other thread has
+	 * taken are then run here too (a column with a single row is chosen in
+	 * place, as there is nothing to split).  The rest is searched with
+	 * searchFrom().
+	 */
+	private void splitSearch(int depth, int levels) {
+		if (stopped.get()) {
+			return;
+		}
+		if (right[0] == 0 || levels == 0) {
+			searchFrom(depth);
+			return;
+		}
+
+		int col = smallestColumn();
+		int numChoices = size[col];
+		if (numChoices == 0) {
+			return;
+		}
+
+		if (numChoices == 1) {
+			int node = down[col];
+			choose(node, depth);
+			splitSearch(depth + 1, levels);
+			unchoose(node);
+			return;
+		}
+
+		// enough tasks to keep the pool busy already
+		if ((long) numChoices * owner.liveTasks.get() > TASKS_PER_THREAD * owner.parallelism) {
+			searchFrom(depth);
+			return;
+		}
+
+		// each task carries the rows chosen since the selected ones, so a
+		// thread that takes it can rebuild these links on a copy
+		List<SearchTask> tasks = new ArrayList<>();
+		int first = down[col];
+		for (int node = down[first]; node != col; node = down[node]) {
+			solution[depth] = node;
+			int[] path = Arrays.copyOfRange(solution, owner.numSelected, depth + 1);
+
+			SearchTask task = new SearchTask(owner, path, depth + 1, levels - 1);
+			owner.liveTasks.incrementAndGet();
+			task.fork();
+			tasks.add(task);
+		}
+
+		searchRow(first, depth, levels - 1);
+
+		// newest first, as only the top of this thread's queue can be taken back
+		for (int t = tasks.size() - 1; t >= 0; t--) {
+			SearchTask task = tasks.get(t);
+			if (task.tryUnfork()) {
+				owner.liveTasks.decrementAndGet();
+				searchRow(task.path[task.path.length - 1], depth, levels - 1);
+			} else {
+				task.join();
+			}
+		}
+	}
+
+	/**
+	 * Parallel search of the covers with node's row at depth, on these links.
+	 */
+	private void searchRow(int node, int depth, int levels) {
+		choose(node, depth);
+		splitSearch(depth + 1, levels);
+		unchoose(node);
+	}
+
+	/**
+	 * Adds the row of node to the solution at depth, covering its columns.
+	 */
+	private void choose(int node, int depth) {
+		solution[depth] = node;
+		cover(column[node]);
+		for (int other = right[node]; other != node; other = right[other]) {
+			cover(column[other]);
+		}
+	}
+
+	/**
+	 * Undoes choose(node, depth).
+	 */
+	private void unchoose(int node) {
+		for (int other = left[node]; other != node; other = left[other]) {
+			uncover(column[other]);
+		}
+		uncover(column[node]);
+	}
+
+	private void cover(int col) {
+		right[left[col]] = right[col];
+		left[right[col]] = left[col];
+
+		for (int rowNode = down[col]; rowNode != col; rowNode = down[rowNode]) {
+			for (int node = right[rowNode]; node != rowNode; node = right[node]) {
+				down[up[node]] = down[node];
+				up[down[node]] = up[node];
+				size[column[node]]--;
+			}
+		}
+	}
+
+	private void uncover(int col) {
+		for (int rowNode = up[col]; rowNode != col; rowNode = up[rowNode]) {
+			for (int node = left[rowNode]; node != rowNode; node = left[node]) {
+				size[column[node]]++;
+				down[up[node]] = node;
+				up[down[node]] = node;
+			}
+		}
+
+		right[left[col]] = col;
+		left[right[col]] = col;
+	}
+
+	/**
+	 * Searches one part of a parallel search on its own copy of the links,
+	 * made when the task runs.
+	 */
+	private static class SearchTask extends RecursiveAction {
+
+		private static final long serialVersionUID = 1L;
+
+		// engine the search was started on, and the nodes chosen after its
+		// selected rows to get to this part
+		private final ExactCover owner;
+		private final int[] path;
+		private final int depth;
+		private final int levels;
+
+		SearchTask(ExactCover owner, int[] path, int depth, int levels) {
+			this.owner = owner;
+			this.path = path;
+			this.depth = depth;
+			this.levels = levels;
+		}
+
+		@Override
+		protected void compute() {
+			try {
+				if (owner.stopped.get()) {
+					return;
+				}
+
+				ExactCover links = new ExactCover(owner);
+				for (int d = 0; d < path.length; d++) {
+					links.choose(path[d], owner.numSelected + d);
+				}
+				links.splitSearch(depth, levels);
+			} finally {
+				owner.liveTasks.decrementAndGet();
+			}
+		}
+	}
+
+} // end of class ExactCover
@@ -0,0 +1,25 @@
+/*
+ * @author Jeffrey Chan & Minyi Li, RMIT 2020
+ */
+
+package solver;
+
+/**
+ * Callback for the exact covers found by ExactCover.
+ */
+public interface ExactCoverListener
+{
+
+    /**
+     * Called once for each exact cover found.
+     *
+     * @param rows Ids of the rows in the cover (as returned by
+     *          ExactCover.addRow()), selected rows first.  Only valid during
+     *          the call, the engine reuses it for the next cover.
+     * @param numRows Number of rows in the cover, the rest of rows is unused.
+     *
+     * @return True to keep searching, false to stop.
+     */
+    boolean coverFound(int[] rows, int numRows);
+
+} // end of interface ExactCoverListener
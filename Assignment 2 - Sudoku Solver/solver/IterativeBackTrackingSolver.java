@@ -0,0 +1,71 @@
+/*
+ * @author Jeffrey Chan & Minyi Li, RMIT 2020
+ */
+
+package solver;
+
+import grid.SudokuGrid;
+
+/**
+ * Iterative backtracking solver for standard Sudoku. Walks a precomputed list
+ * of empty cells with an explicit stack instead of recursion, so large grids
+ * are not limited by the thread stack and moving to the next cell is O(1).
+ */
+public class IterativeBackTrackingSolver extends StdSudokuSolver {
+
+	public IterativeBackTrackingSolver() {} // end of IterativeBackTrackingSolver()
+
+	@Override
+	public boolean solve(SudokuGrid grid) {
+
+		// load the givens into the row/column/box masks
+		ConstraintMasks masks = new ConstraintMasks(grid);
+
+		// givens already clash, so there is nothing to search
+		if (!masks.isConsistent()) {
+			return false;
+		}
+
+		// stack frame d is emptyCells[d] plus the candidates it hasn't tried yet
+		int[] emptyCells = masks.emptyCells();
+		long[] untried = new long[emptyCells.length];
+
+		int depth = 0;
+		if (emptyCells.length > 0) {
+			untried[0] = masks.candidates(emptyCells[0]);
+		}
+
+		while (depth < emptyCells.length) {
+			int cell = emptyCells[depth];
+
+			if (untried[depth] == 0) {
+
+				// nothing left to try here, so pop and undo the previous cell
+				depth--;
+				if (depth < 0) {
+					return false;
+				}
+				masks.remove(emptyCells[depth]);
+
+			} else {
+
+				// take the next candidate (lowest symbol index first)
+				int k = Long.numberOfTrailingZeros(untried[depth]);
+				untried[depth] &= untried[depth] - 1;
+				masks.place(cell, k);
+
+				// push the next empty cell
+				depth++;
+				if (depth < emptyCells.length) {
+					untried[depth] = masks.candidates(emptyCells[depth]);
+				}
+			}
+		}
+
+		// copy the solution into the grid
+		masks.writeTo(grid);
+		report("Successfully solved the puzzle via iterative backtracking");
+		return true;
+	} // end of solve()
+
+} // end of class IterativeBackTrackingSolver
@@ -33,7 +33,7 @@ public class KillerBackTrackingSolver extends KillerSudokuSolver {
 						sudokuGrid[i][j].setValue(symbols[k]);
 
 						// check if the inserted symbol is valid
-						if (grid.validate()) {
+						if (grid.validate(i, j)) {
 
 							// recursion on solve method to set next empty cell
 							if (solve(grid)) {
@@ -53,7 +53,7 @@ public class KillerBackTrackingSolver extends KillerSudokuSolver {
 		}
 
 		// return true for successful solution (no more empty cells in the grid)
-		System.out.println("Successfully solved the puzzle via backtracking");
+		report("Successfully solved the puzzle via backtracking");
 		return true;
 	} // end of solve()
 
@@ -0,0 +1,230 @@
+/*
+ * @author Jeffrey Chan & Minyi Li, RMIT 2020
+ */
+
+package solver;
+
+import java.util.Arrays;
+
+import grid.SudokuGrid;
+
+/**
+ * Dancing links solver for Killer Sudoku, encoding the puzzle for the
+ * ExactCover engine.
+ *
+ * Besides the cell, row, column and box constraints of standard Sudoku, every
+ * cage has a column that one combination row must cover, and a column for
+ * each (cage, symbol) pair.  A combination row stands for a set of distinct
+ * symbols that adds up to the cage target and has as many symbols as the
+ * cage has cells.  It covers the cage column and the (cage, symbol) columns
+ * of the symbols NOT in the set.  A cell candidate row covers the
+ * (cage, symbol) column of its own symbol as well.  So every symbol of the
+ * chosen combination is placed in exactly one cell of the cage, and the
+ * cage's cells hold exactly that combination.  Cell candidates whose symbol
+ * is in no combination of their cage are left out altogether.  Symbol sets
+ * are masks in a long, so puzzle sizes up to 64 are supported.
+ */
+public class KillerDancingLinksSolver extends KillerSudokuSolver implements SolutionCounter {
+
+	private int puzzleSize;
+	private int[] symbols;
+	private int squareSize;
+	private int numCells;
+
+	// row id of each cell candidate (row * n + col) * n + symbol, -1 if it
+	// has no row, and the candidate of each row id, -1 for combination rows
+	private int[] candidateRows;
+	private int[] rowCandidates;
+
+	// grid cells of the puzzle being solved
+	private short[] cells;
+	// false while counting, so the grid is left as it is
+	private boolean writeSolution = true;
+	private long numDecoded;
+
+	public KillerDancingLinksSolver() {} // end of KillerDancingLinksSolver()
+
+	@Override
+	public boolean solve(SudokuGrid grid) {
+		return search(grid, 1) > 0;
+	} // end of solve()
+
+	/**
+	 * Counts solutions with the same search as solve(), but without writing
+	 * to the grid.
+	 */
+	@Override
+	public long countSolutions(SudokuGrid grid, long limit) {
+		writeSolution = false;
+
+		try {
+			return search(grid, limit);
+		} finally {
+			writeSolution = true;
+		}
+	} // end of countSolutions()
+
+	/**
+	 * @return Number of solutions found, at most limit.
+	 */
+	private long search(SudokuGrid grid, long limit) {
+		// create everything needed for solving
+		this.puzzleSize = grid.getPuzzleSize();
+		if (puzzleSize > 64) {
+			throw new IllegalArgumentException("Puzzle size " + puzzleSize
+					+ " is over the 64 symbols a cage mask can hold");
+		}
+		this.symbols = grid.getSymbols();
+		this.squareSize = (int) Math.sqrt(puzzleSize);
+		this.numCells = puzzleSize * puzzleSize;
+		this.cells = grid.getCells();
+
+		// cages differ from puzzle to puzzle, so the rows are built every time
+		ExactCover exactCover = buildExactCover(grid.getCageIds(), grid.getCageTargets(),
+				grid.getCageSizes());
+
+		// givens (if any) are part of every cover
+		if (!selectGivens(exactCover)) {
+			return 0;
+		}
+
+		numDecoded = 0;
+		return exactCover.search(limit, writeSolution ? this::decode : null);
+	}
+
+	/**
+	 * Writes the first cover to the grid.
+	 *
+	 * @return True, to keep searching up to the solution limit.
+	 */
+	private boolean decode(int[] rows, int numRows) {
+		numDecoded++;
+
+		// the grid keeps the first solution
+		if (numDecoded == 1) {
+			report("Successfully solved the puzzle via killer dancing links");
+			for (int d = 0; d < numRows; d++) {
+				int candidate = rowCandidates[rows[d]];
+				if (candidate != -1) {
+					cells[candidate / puzzleSize] = (short) symbols[candidate % puzzleSize];
+				}
+			}
+		}
+
+		return true;
+	}
+
+	/**
+	 * Adds a row for every cell candidate (row, col, symbol) whose symbol
+	 * appears in a combination of its cage, followed by the combination rows
+	 * of every cage.
+	 */
+	private ExactCover buildExactCover(int[] cageIds, int[] cageTargets, int[] cageSizes) {
+		// the cage columns come first, so the search prefers them on ties,
+		// which roughly halves the tree on hard puzzles
+		int numCages = cageTargets.length;
+		int firstCageColumn = 0;
+		int firstCageSymbolColumn = numCages;
+		int firstCellColumn = numCages + numCages * puzzleSize;
+		ExactCover cover = new ExactCover(firstCellColumn + numCells * 4, 0);
+
+		// symbol sets (as masks of symbol indices) that fit each cage, and
+		// the symbols used by any of them
+		CageCombinations table = CageCombinations.forSymbols(symbols);
+		long[][] combinations = new long[numCages][];
+		long[] cageSymbols = new long[numCages];
+		for (int cage = 0; cage < numCages; cage++) {
+			combinations[cage] = table.getCombinations(cageSizes[cage], cageTargets[cage]);
+			cageSymbols[cage] = table.getCandidateMask(cageSizes[cage], cageTargets[cage]);
+		}
+
+		int numCandidates = numCells * puzzleSize;
+		candidateRows = new int[numCandidates];
+		rowCandidates = new int[numCandidates + numCells];
+
+		// cells outside any cage only have the standard constraints
+		int[] cageColumns = new int[5];
+		int[] plainColumns = new int[4];
+		for (int i = 0; i < puzzleSize; i++) {
+			for (int j = 0; j < puzzleSize; j++) {
+				int box = (i / squareSize) * squareSize + j / squareSize;
+				int cage = cageIds[i * puzzleSize + j];
+				int[] rowColumns = cage == -1 ? plainColumns : cageColumns;
+
+				for (int k = 0; k < puzzleSize; k++) {
+					int candidate = (i * puzzleSize + j) * puzzleSize + k;
+
+					// no combination of the cage uses this symbol
+					if (cage != -1 && (cageSymbols[cage] & (1L << k)) == 0) {
+						candidateRows[candidate] = -1;
+						continue;
+					}
+
+					// cell, row, column and box constraints
+					rowColumns[0] = firstCellColumn + i * puzzleSize + j;
+					rowColumns[1] = firstCellColumn + numCells + i * puzzleSize + k;
+					rowColumns[2] = firstCellColumn + numCells * 2 + j * puzzleSize + k;
+					rowColumns[3] = firstCellColumn + numCells * 3 + box * puzzleSize + k;
+					if (cage != -1) {
+						rowColumns[4] = firstCageSymbolColumn + cage * puzzleSize + k;
+					}
+
+					int row = cover.addRow(rowColumns);
+					candidateRows[candidate] = row;
+					rowCandidates[row] = candidate;
+				}
+			}
+		}
+
+		for (int cage = 0; cage < numCages; cage++) {
+			for (long combination : combinations[cage]) {
+				// the cage column, plus a column for every symbol left out
+				int[] rowColumns = new int[1 + puzzleSize - Long.bitCount(combination)];
+				int n = 0;
+				rowColumns[n++] = firstCageColumn + cage;
+				for (int k = 0; k < puzzleSize; k++) {
+					if ((combination & (1L << k)) == 0) {
+						rowColumns[n++] = firstCageSymbolColumn + cage * puzzleSize + k;
+					}
+				}
+
+				int row = cover.addRow(rowColumns);
+				if (row == rowCandidates.length) {
+					rowCandidates = Arrays.copyOf(rowCandidates, row * 2);
+				}
+				rowCandidates[row] = -1;
+			}
+		}
+
+		return cover;
+	}
+
+	/**
+	 * Selects the candidate row of every given cell.
+	 *
+	 * @return False if a given clashes with another one (or isn't a symbol).
+	 */
+	private boolean selectGivens(ExactCover cover) {
+		for (int cell = 0; cell < cells.length; cell++) {
+			if (cells[cell] == -1) {
+				continue;
+			}
+
+			int k = 0;
+			while (k < puzzleSize && symbols[k] != cells[cell]) {
+				k++;
+			}
+			if (k == puzzleSize) {
+				return false;
+			}
+
+			int row = candidateRows[cell * puzzleSize + k];
+			if (row == -1 || !cover.selectRow(row)) {
+				return false;
+			}
+		}
+
+		return true;
+	}
+
+} // end of class KillerDancingLinksSolver
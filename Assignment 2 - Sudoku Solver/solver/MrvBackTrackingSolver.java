@@ -0,0 +1,101 @@
+/*
+ * @author Jeffrey Chan & Minyi Li, RMIT 2020
+ */
+
+package solver;
+
+import grid.SudokuGrid;
+
+/**
+ * Backtracking solver for standard Sudoku using the minimum-remaining-values
+ * heuristic: it always branches on the empty cell with the fewest candidate
+ * symbols, and fails straight away when some cell has none left.
+ */
+public class MrvBackTrackingSolver extends StdSudokuSolver {
+
+	private ConstraintMasks masks;
+	private int[] emptyCells;
+
+	public MrvBackTrackingSolver() {} // end of MrvBackTrackingSolver()
+
+	@Override
+	public boolean solve(SudokuGrid grid) {
+
+		// load the givens into the row/column/box masks
+		this.masks = new ConstraintMasks(grid);
+
+		// givens already clash, so there is nothing to search
+		if (!masks.isConsistent()) {
+			return false;
+		}
+
+		// cells still to fill, emptyCells[depth..] are the unfilled ones
+		this.emptyCells = masks.emptyCells();
+
+		if (solveFrom(0)) {
+			// copy the solution into the grid
+			masks.writeTo(grid);
+			report("Successfully solved the puzzle via MRV backtracking");
+			return true;
+		}
+
+		return false;
+	} // end of solve()
+
+	private boolean solveFrom(int depth) {
+
+		// no more empty cells in the grid
+		if (depth == emptyCells.length) {
+			return true;
+		}
+
+		// find the unfilled cell with the fewest candidates
+		int best = -1;
+		long bestCandidates = 0;
+		int bestCount = Integer.MAX_VALUE;
+		for (int i = depth; i < emptyCells.length; i++) {
+			long candidates = masks.candidates(emptyCells[i]);
+			int count = Long.bitCount(candidates);
+
+			// dead end, no symbol fits this cell
+			if (count == 0) {
+				return false;
+			}
+
+			if (count < bestCount) {
+				best = i;
+				bestCandidates = candidates;
+				bestCount = count;
+
+				// can't do better than a forced cell
+				if (count == 1) {
+					break;
+				}
+			}
+		}
+
+		// move the chosen cell to the front of the unfilled section
+		int cell = emptyCells[best];
+		emptyCells[best] = emptyCells[depth];
+		emptyCells[depth] = cell;
+
+		// try each candidate, lowest symbol index first
+		while (bestCandidates != 0) {
+			int k = Long.numberOfTrailingZeros(bestCandidates);
+			bestCandidates &= bestCandidates - 1;
+
+			masks.place(cell, k);
+
+			if (solveFrom(depth + 1)) {
+				return true;
+			}
+
+			// undo and try the next candidate
+			masks.remove(cell);
+		}
+
+		// if no possible solution, backtrack
+		return false;
+	}
+
+} // end of class MrvBackTrackingSolver
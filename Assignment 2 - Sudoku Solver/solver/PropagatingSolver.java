@@ -0,0 +1,63 @@
+/*
+ * @author Jeffrey Chan & Minyi Li, RMIT 2020
+ */
+
+package solver;
+
+import grid.SudokuGrid;
+
+/**
+ * Runs the singles propagation stage on a standard Sudoku grid and then hands
+ * the reduced grid to another solver. Grids that are fully solved by
+ * propagation never reach the wrapped solver. Grids too large for
+ * ConstraintMasks skip propagation and go straight to the wrapped solver.
+ */
+public class PropagatingSolver extends StdSudokuSolver {
+
+	private SudokuSolver solver;
+
+	public PropagatingSolver(SudokuSolver solver) {
+		this.solver = solver;
+	} // end of PropagatingSolver()
+
+	@Override
+	public void setQuiet(boolean bQuiet) {
+		super.setQuiet(bQuiet);
+		solver.setQuiet(bQuiet);
+	} // end of setQuiet()
+
+	@Override
+	public boolean solve(SudokuGrid grid) {
+
+		// too many symbols for the masks, so the wrapped solver does it all
+		if (grid.getPuzzleSize() > ConstraintMasks.MAX_PUZZLE_SIZE) {
+			return solver.solve(grid);
+		}
+
+		// load the givens into the row/column/box masks
+		ConstraintMasks masks = new ConstraintMasks(grid);
+
+		// givens already clash, so there is nothing to search
+		if (!masks.isConsistent()) {
+			return false;
+		}
+
+		// deduce singles, a contradiction means there is no solution
+		SinglesPropagator propagator = new SinglesPropagator(masks.getPuzzleSize());
+		if (!propagator.propagate(masks)) {
+			return false;
+		}
+
+		// write the deduced cells into the grid
+		masks.writeTo(grid);
+
+		if (masks.emptyCells().length == 0) {
+			report("Successfully solved the puzzle via singles propagation");
+			return true;
+		}
+
+		// let the chosen solver search the rest
+		return solver.solve(grid);
+	} // end of solve()
+
+} // end of class PropagatingSolver
@@ -0,0 +1,111 @@
+/*
+ * @author Jeffrey Chan & Minyi Li, RMIT 2020
+ */
+package solver;
+
+/**
+ * Constraint propagation for standard Sudoku. Repeatedly fills naked singles
+ * (cells with one candidate left) and hidden singles (symbols with one possible
+ * cell left in a row, column or box) until nothing more can be deduced.
+ */
+public class SinglesPropagator {
+
+	private int puzzleSize;
+	private int[][] units;
+
+	public SinglesPropagator(int puzzleSize) {
+		this.puzzleSize = puzzleSize;
+		int squareSize = (int) Math.sqrt(puzzleSize);
+
+		// every row, column and box as a list of row-major cell indices
+		this.units = new int[puzzleSize * 3][puzzleSize];
+		for (int i = 0; i < puzzleSize; i++) {
+			for (int j = 0; j < puzzleSize; j++) {
+				int cell = i * puzzleSize + j;
+				int box = (i / squareSize) * squareSize + j / squareSize;
+				int posInBox = (i % squareSize) * squareSize + j % squareSize;
+
+				units[i][j] = cell;
+				units[puzzleSize + j][i] = cell;
+				units[puzzleSize * 2 + box][posInBox] = cell;
+			}
+		}
+	} // end of SinglesPropagator()
+
+	/**
+	 * Fills singles into masks until a fixpoint is reached.
+	 *
+	 * @param masks Constraint state to reduce, updated in place.
+	 *
+	 * @return False if a contradiction was found (a cell with no candidates or
+	 *         a symbol with nowhere to go), otherwise true.
+	 */
+	public boolean propagate(ConstraintMasks masks) {
+		int numCells = masks.getNumCells();
+		boolean changed = true;
+
+		while (changed) {
+			changed = false;
+
+			// naked singles
+			for (int cell = 0; cell < numCells; cell++) {
+				if (masks.getSymbolIndex(cell) == -1) {
+					long candidates = masks.candidates(cell);
+
+					// no symbol fits this cell
+					if (candidates == 0) {
+						return false;
+					}
+
+					// only one symbol fits, so place it
+					if (Long.bitCount(candidates) == 1) {
+						masks.place(cell, Long.numberOfTrailingZeros(candidates));
+						changed = true;
+					}
+				}
+			}
+
+			// hidden singles
+			for (int[] unit : units) {
+				long used = 0;
+				long once = 0;
+				long twice = 0;
+
+				// work out which symbols can go in exactly one cell of the unit
+				for (int cell : unit) {
+					int k = masks.getSymbolIndex(cell);
+					if (k != -1) {
+						used |= 1L << k;
+					} else {
+						long candidates = masks.candidates(cell);
+						twice |= once & candidates;
+						once |= candidates;
+					}
+				}
+
+				// some symbol can't go anywhere in this unit
+				if (Long.bitCount(used | once) != puzzleSize) {
+					return false;
+				}
+
+				// place each hidden single in the one cell that allows it
+				long singles = once & ~twice;
+				while (singles != 0) {
+					int k = Long.numberOfTrailingZeros(singles);
+					singles &= singles - 1;
+
+					for (int cell : unit) {
+						if (masks.getSymbolIndex(cell) == -1 && (masks.candidates(cell) & (1L << k)) != 0) {
+							masks.place(cell, k);
+							changed = true;
+							break;
+						}
+					}
+				}
+			}
+		}
+
+		return true;
+	}
+
+} // end of class SinglesPropagator
@@ -0,0 +1,39 @@
+/*
+ * @author Jeffrey Chan & Minyi Li, RMIT 2020
+ */
+
+package solver;
+
+import grid.SudokuGrid;
+
+/**
+ * Solvers that can count the solutions of a grid, not just find one.
+ */
+public interface SolutionCounter
+{
+
+    /**
+     * Counts the solutions of the input grid, stopping as soon as limit are
+     * found.  Unlike solve(), the grid is left as it is.
+     *
+     * @param grid Input grid to count the solutions of.
+     * @param limit Number of solutions to stop at, at least 1.
+     *
+     * @return Number of solutions found, at most limit.
+     */
+    long countSolutions(SudokuGrid grid, long limit);
+
+
+    /**
+     * Checks that the input grid has exactly one solution, stopping at the
+     * second one.  The grid is left as it is.
+     *
+     * @param grid Input grid to check.
+     *
+     * @return True if the grid has exactly one solution.
+     */
+    default boolean isUnique(SudokuGrid grid) {
+        return countSolutions(grid, 2) == 1;
+    } // end of isUnique()
+
+} // end of interface SolutionCounter
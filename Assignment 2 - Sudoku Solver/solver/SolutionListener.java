@@ -0,0 +1,23 @@
+/*
+ * @author Jeffrey Chan & Minyi Li, RMIT 2020
+ */
+
+package solver;
+
+/**
+ * Callback for solvers that can enumerate more than one solution.
+ */
+public interface SolutionListener
+{
+
+    /**
+     * Called once for each solution found.
+     *
+     * @param solution The solved board.  Only valid during the call, the
+     *          solver reuses it for the next solution.
+     *
+     * @return True to keep searching, false to stop.
+     */
+    boolean solutionFound(int[][] solution);
+
+} // end of interface SolutionListener
@@ -12,6 +12,12 @@ import grid.SudokuGrid;
  */
 public abstract class SudokuSolver
 {
+    /**
+     * Whether solve() leaves out its "Successfully solved" message, e.g. in
+     * batch mode where printing it would be timed along with the solving.
+     */
+    private boolean bQuiet = false;
+
 
     /**
      * Solves the input grid.  Different solvers should override this to implement
@@ -24,4 +30,27 @@ public abstract class SudokuSolver
      */
     public abstract boolean solve(SudokuGrid grid);
 
+
+    /**
+     * @param bQuiet True to stop solve() printing progress messages.
+     */
+    public void setQuiet(boolean bQuiet) {
+        this.bQuiet = bQuiet;
+    } // end of setQuiet()
+
+
+    public boolean isQuiet() {
+        return bQuiet;
+    } // end of isQuiet()
+
+
+    /**
+     * Print a progress message, unless the solver is quiet.
+     */
+    protected void report(String message) {
+        if (!bQuiet) {
+            System.out.println(message);
+        }
+    } // end of report()
+
 } // end of class SudokuSolver